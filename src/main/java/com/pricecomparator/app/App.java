@@ -4,6 +4,7 @@ import java.util.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.io.*;
+import java.nio.file.Paths;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -11,14 +12,18 @@ import com.google.gson.reflect.TypeToken;
 import com.pricecomparator.service.BasketOptimizer;
 import com.pricecomparator.service.BestDiscounts;
 import com.pricecomparator.service.NewestDiscounts;
+import com.pricecomparator.service.OptimizedBasket;
 import com.pricecomparator.repository.MarketDataRepository;
 import com.pricecomparator.repository.ProductRepository;
 import com.pricecomparator.repository.AlertRepository;
 import com.pricecomparator.repository.DiscountRepository;
+import com.pricecomparator.repository.MarketDataWatcher;
 import com.pricecomparator.loader.MarketDataLoader;
+import com.pricecomparator.loader.MarketDataSnapshot;
 import com.pricecomparator.model.Product;
 import com.pricecomparator.model.Discount;
 import com.pricecomparator.model.PriceAlert;
+import com.pricecomparator.model.WishListItem;
 import com.pricecomparator.service.PriceAlertService;
 import com.pricecomparator.service.PriceDataService;
 import com.pricecomparator.service.ValueUnit;
@@ -38,6 +43,7 @@ public class App {
     private static final Map<Integer,String> PREDEFINED_STORES = new LinkedHashMap<>();
 
     private static MarketDataRepository marketDataRepository;
+    private static MarketDataWatcher marketDataWatcher;
     private static BasketOptimizer basketOptimizer;
     private static BestDiscounts bestDiscounts;
     private static NewestDiscounts newestDiscounts;
@@ -112,6 +118,7 @@ public class App {
                     break;
                 case OPTION_EXIT:
                     System.out.println("Goodbye!");
+                    stopWatcher();
                     return;
                 default:
                     System.out.println("Invalid option. Try again.");
@@ -120,8 +127,20 @@ public class App {
     }
     
     private static void initializeRepositories(String date) {
-        // Use the new factory method to create MarketDataRepository from files
-        marketDataRepository = MarketDataRepository.createFromFiles();
+        // Reuse the binary snapshot when no CSV changed, otherwise load the files in parallel
+        marketDataRepository = MarketDataRepository.createFromSnapshotOrFiles(Paths.get(MarketDataSnapshot.DEFAULT_PATH),
+                MarketDataLoader.DEFAULT_PARALLELISM, MarketDataLoader.DEFAULT_FEED_PARSER);
+        // Price changes from new files are reported for the chosen date
+        marketDataRepository.setToday(LocalDate.parse(date));
+
+        // Pick up new store/date files while the app is running
+        marketDataWatcher = new MarketDataWatcher(marketDataRepository,
+                Paths.get(MarketDataLoader.RESOURCE_PATH), MarketDataLoader.DEFAULT_FEED_PARSER);
+        try {
+            marketDataWatcher.start();
+        } catch (IOException e) {
+            System.out.println("Warning: Could not watch " + MarketDataLoader.RESOURCE_PATH + " for new files: " + e.getMessage());
+        }
         
         basketOptimizer = new BasketOptimizer(marketDataRepository);
         bestDiscounts = new BestDiscounts(marketDataRepository);
@@ -130,6 +149,16 @@ public class App {
 
         AlertRepository alertRepository = new AlertRepository();
         priceAlertService = new PriceAlertService(alertRepository, marketDataRepository);
+        // Announce alerts as soon as the watcher ingests a file that triggers them
+        priceAlertService.watchPriceChanges(trigger -> System.out.println(trigger));
+    }
+
+    private static void stopWatcher() {
+        try {
+            marketDataWatcher.close();
+        } catch (IOException e) {
+            System.out.println("Warning: Could not stop file watcher: " + e.getMessage());
+        }
     }
 
     private static void printMenu() {
@@ -152,6 +181,15 @@ public class App {
         return scanner.nextInt();
     }
 
+    private static double readDouble(Scanner scanner, String prompt) {
+        System.out.print(prompt);
+        while (!scanner.hasNextDouble()) {
+            scanner.next();
+            System.out.print("Please enter a valid number: ");
+        }
+        return scanner.nextDouble();
+    }
+
     private static List<String> getDesiredBasket(Scanner scanner)
     {
         System.out.println("\nSelect a basket:");
@@ -213,6 +251,9 @@ public class App {
             System.out.println("4) Clear basket");
             System.out.println("5) View all saved baskets");
             System.out.println("6) Modify a saved basket");
+            System.out.println("7) Plan basket with a store limit");
+            System.out.println("8) Fit basket to a budget");
+            System.out.println("9) Find the cheapest day in the next two weeks");
             System.out.println("0) Back to main menu");
             int choice = readInt(scanner, "Your choice: ");
             switch (choice) {
@@ -234,6 +275,15 @@ public class App {
                 case 6:
                     modifySavedBasket(scanner);
                     break;
+                case 7:
+                    planBasketWithStoreLimit(scanner);
+                    break;
+                case 8:
+                    fitBasketToBudget(scanner);
+                    break;
+                case 9:
+                    findCheapestDay();
+                    break;
                 case 0:
                     done = true;
                     break;
@@ -271,16 +321,47 @@ public class App {
             }
         }
         if(basket == null || basket.isEmpty()) return;
-        // Convert to List<String> for compatibility with optimizer
-        List<String> productIds = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : basket.entrySet()) {
-            for (int i = 0; i < entry.getValue(); i++) {
-                productIds.add(entry.getKey());
-            }
-        }
-        basketOptimizer.optimizeBasketSplit(productIds, currentDate);
+        basketOptimizer.writeBasketSplit(basketOptimizer.optimize(null, basket, currentDate));
     }
     
+    private static void planBasketWithStoreLimit(Scanner scanner) {
+        if (currentBasket.isEmpty()) {
+            System.out.println("No basket to plan. Please optimize or load a basket first.");
+            return;
+        }
+        int maxStores = readInt(scanner, "Maximum number of stores to visit: ");
+        if (maxStores < 1) {
+            System.out.println("At least one store is needed.");
+            return;
+        }
+        double visitCost = readDouble(scanner, "Cost of visiting one store (RON): ");
+        basketOptimizer.showStoreLimitedPlans(currentBasket, currentDate, maxStores, visitCost);
+    }
+
+    private static void fitBasketToBudget(Scanner scanner) {
+        if (currentBasket.isEmpty()) {
+            System.out.println("No basket to fit. Please optimize or load a basket first.");
+            return;
+        }
+        double budget = readDouble(scanner, "Budget (RON): ");
+        // Products entered first matter most
+        List<WishListItem> wishList = new ArrayList<>();
+        int priority = currentBasket.size();
+        for (Map.Entry<String, Integer> entry : currentBasket.entrySet()) {
+            wishList.add(new WishListItem(entry.getKey(), entry.getValue(), priority--));
+        }
+        basketOptimizer.showBudgetBasket(wishList, currentDate, budget);
+    }
+
+    private static void findCheapestDay() {
+        if (currentBasket.isEmpty()) {
+            System.out.println("No basket to price. Please optimize or load a basket first.");
+            return;
+        }
+        String toDate = LocalDate.parse(currentDate).plusDays(13).toString();
+        basketOptimizer.showCheapestDay(currentBasket, currentDate, toDate);
+    }
+
     private static void saveBasket(Scanner scanner) {
         if (currentBasket.isEmpty()) {
             System.out.println("No basket to save. Please create a basket first.");
@@ -580,12 +661,18 @@ public class App {
         }
         String selectedName = basketNames.get(choice - 1);
         Map<String, Integer> basket = savedBaskets.get(selectedName);
+        // Kept optimized as it is edited, so each change only reprices one product
+        OptimizedBasket optimized = basketOptimizer.openBasket(basket, currentDate);
         boolean done = false;
         while (!done) {
             System.out.println("\nEditing basket: " + selectedName);
             for (Map.Entry<String, Integer> prod : basket.entrySet()) {
-                System.out.println("  Product ID: " + prod.getKey() + " | Quantity: " + prod.getValue());
+                String store = optimized.getStoreOf(prod.getKey());
+                System.out.println("  Product ID: " + prod.getKey() + " | Quantity: " + prod.getValue()
+                    + (store != null ? " | Buy at: " + store : " | Not sold on " + currentDate));
             }
+            System.out.println("  Optimized total: " + String.format("%.2f", optimized.getOptimizedTotal())
+                + " RON (saves " + String.format("%.2f", optimized.getSavings()) + " RON)");
             System.out.println("1) Add product");
             System.out.println("2) Delete product");
             System.out.println("3) Edit product quantity");
@@ -599,6 +686,7 @@ public class App {
                     System.out.print("Enter quantity: ");
                     int addQty = readInt(scanner, "");
                     basket.put(addId, basket.getOrDefault(addId, 0) + addQty);
+                    optimized.add(addId, addQty);
                     System.out.println("Product added/updated.");
                     saveBasketsToDisk();
                     break;
@@ -608,6 +696,7 @@ public class App {
                     String delId = scanner.nextLine().trim();
                     if (basket.containsKey(delId)) {
                         basket.remove(delId);
+                        optimized.remove(delId);
                         System.out.println("Product removed.");
                         saveBasketsToDisk();
                     } else {
@@ -621,6 +710,7 @@ public class App {
                     if (basket.containsKey(editId)) {
                         System.out.print("Enter new quantity: ");
                         int newQty = readInt(scanner, "");
+                        optimized.setQuantity(editId, newQty);
                         if (newQty > 0) {
                             basket.put(editId, newQty);
                             System.out.println("Quantity updated.");
@@ -742,6 +832,7 @@ public class App {
                 System.out.println("Invalid price format. Keeping current price.");
             }
         }
+        priceAlertService.alertsChanged();
     }
 
     private static void deleteAlert(Scanner scanner) {
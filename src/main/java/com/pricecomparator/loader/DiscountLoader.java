@@ -1,41 +1,73 @@
 package com.pricecomparator.loader;
 
 import com.opencsv.*;
-import com.opencsv.exceptions.CsvException;
+import com.opencsv.exceptions.CsvValidationException;
 import com.pricecomparator.model.Discount;
 import com.pricecomparator.validator.DiscountValidator;
+import com.pricecomparator.validator.ValidationException;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class DiscountLoader {
 
     public static List<Discount> loadFromCSV(String filePath) {
         List<Discount> discounts = new ArrayList<>();
+        streamFromCSV(filePath, discounts::add);
+        return discounts;
+    }
+
+    /**
+     * Parses and validates the file one row at a time, handing each discount to the sink
+     * as soon as it is built, so no list of rows is ever held in memory.
+     *
+     * @param filePath Path of a semicolon separated discount file
+     * @param sink Receives every valid discount in file order
+     * @return The number of discounts passed to the sink
+     * @throws UncheckedIOException If the file cannot be read to the end, so no partial file is used
+     */
+    public static int streamFromCSV(String filePath, Consumer<Discount> sink) {
         DiscountValidator validator = new DiscountValidator();
+        StringDictionary dictionary = StringDictionary.shared();
+        int count = 0;
 
-        try (CSVReader reader = new CSVReaderBuilder(new FileReader(filePath))
+        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))
                                      .withCSVParser(new CSVParserBuilder().withSeparator(';').build())
+                                     .withSkipLines(1)
                                      .build()) {
-            List<String[]> lines = reader.readAll();
-            lines.remove(0); 
-
-            for (String[] line : lines) {
+            String[] line;
+            while ((line = reader.readNext()) != null) {
                 if (line.length < 9) continue;
 
-                Discount d = new Discount(line[0], line[1], line[2], line[3], line[4], 
-                    line[5], line[6], line[7], Integer.parseInt(line[8]));
+                try {
+                    // Repeated values share one String across rows and files
+                    Discount d = new Discount(dictionary.intern(line[0]), dictionary.intern(line[1]),
+                        dictionary.intern(line[2]), dictionary.intern(line[3]), dictionary.intern(line[4]),
+                        dictionary.intern(line[5]), dictionary.intern(line[6]), dictionary.intern(line[7]),
+                        Integer.parseInt(line[8]));
 
-                validator.validate(d);
-                discounts.add(d);
+                    validator.validate(d);
+                    sink.accept(d);
+                    count++;
+                } catch (NumberFormatException e) {
+                    System.err.println("Failed to parse number in line: " + String.join(";", line));
+                } catch (ValidationException e) {
+                    System.err.println("Skipping invalid line (" + e.getMessage() + "): " + String.join(";", line));
+                }
             }
 
-        } catch (IOException | CsvException e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filePath, e);
+        } catch (CsvValidationException e) {
+            throw new UncheckedIOException("Could not read " + filePath, new IOException(e.getMessage(), e));
         }
 
-        return discounts;
+        return count;
     }
 }
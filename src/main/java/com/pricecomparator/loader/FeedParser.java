@@ -0,0 +1,29 @@
+package com.pricecomparator.loader;
+
+import java.util.function.Consumer;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+
+/**
+ * Backend used to turn a product or discount CSV into model objects.
+ * MarketDataLoader can run with either the OpenCSV based loaders or the memory-mapped scanner.
+ */
+public interface FeedParser {
+
+    /**
+     * Parses and validates a product file, passing each product to the sink in file order
+     *
+     * @return The number of products passed to the sink
+     * @throws java.io.UncheckedIOException If the file cannot be read to the end
+     */
+    int parseProducts(String filePath, Consumer<Product> sink);
+
+    /**
+     * Parses and validates a discount file, passing each discount to the sink in file order
+     *
+     * @return The number of discounts passed to the sink
+     * @throws java.io.UncheckedIOException If the file cannot be read to the end
+     */
+    int parseDiscounts(String filePath, Consumer<Discount> sink);
+}
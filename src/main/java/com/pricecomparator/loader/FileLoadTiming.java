@@ -0,0 +1,50 @@
+package com.pricecomparator.loader;
+
+/**
+ * How long a single file took to parse during a parallel load, and how many rows it produced.
+ */
+public class FileLoadTiming {
+    private final String fileName;
+    private final int rowCount;
+    private final long elapsedMillis;
+    private final String threadName;
+    private final String error;
+
+    public FileLoadTiming(String fileName, int rowCount, long elapsedMillis, String threadName, String error) {
+        this.fileName = fileName;
+        this.rowCount = rowCount;
+        this.elapsedMillis = elapsedMillis;
+        this.threadName = threadName;
+        this.error = error;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %6d rows %6d ms [%s]%s", fileName, rowCount, elapsedMillis, threadName,
+                error != null ? " FAILED: " + error : "");
+    }
+}
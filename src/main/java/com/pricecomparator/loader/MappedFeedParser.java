@@ -0,0 +1,264 @@
+package com.pricecomparator.loader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.validator.DiscountValidator;
+import com.pricecomparator.validator.ProductValidator;
+import com.pricecomparator.validator.ValidationException;
+
+/**
+ * Feed parser that scans a memory-mapped file byte by byte.
+ * Fields are located by offsets inside the mapping, numbers are parsed straight from
+ * the bytes and only text columns are decoded into Strings. It expects the fixed
+ * semicolon layouts used by our retailer feeds (no quoting, header on the first line)
+ * and produces exactly the same rows as the OpenCSV loaders for those files.
+ */
+public class MappedFeedParser implements FeedParser {
+    private static final byte SEPARATOR = ';';
+    private static final int PRODUCT_COLUMNS = 8;
+    private static final int DISCOUNT_COLUMNS = 9;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    @Override
+    public int parseProducts(String filePath, Consumer<Product> sink) {
+        ProductValidator validator = new ProductValidator();
+        StringDictionary dictionary = StringDictionary.shared();
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            LineScanner scanner = new LineScanner(map(channel, filePath), PRODUCT_COLUMNS);
+            scanner.skipLine();
+
+            while (scanner.nextLine()) {
+                if (scanner.columns < PRODUCT_COLUMNS) continue;
+
+                try {
+                    double price = scanner.decimal(6);
+                    validator.validatePrice(price);
+                    Product p = new Product(dictionary.intern(scanner.text(0)), dictionary.intern(scanner.text(1)),
+                        dictionary.intern(scanner.text(2)), dictionary.intern(scanner.text(3)), scanner.decimal(4),
+                        dictionary.intern(scanner.text(5)), price, dictionary.intern(scanner.text(7)));
+
+                    validator.validate(p);
+                    sink.accept(p);
+                    count++;
+                } catch (NumberFormatException e) {
+                    System.err.println("Failed to parse number in line: " + scanner.lineText());
+                } catch (ValidationException e) {
+                    System.err.println("Skipping invalid line (" + e.getMessage() + "): " + scanner.lineText());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filePath, e);
+        }
+
+        return count;
+    }
+
+    @Override
+    public int parseDiscounts(String filePath, Consumer<Discount> sink) {
+        DiscountValidator validator = new DiscountValidator();
+        StringDictionary dictionary = StringDictionary.shared();
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            LineScanner scanner = new LineScanner(map(channel, filePath), DISCOUNT_COLUMNS);
+            scanner.skipLine();
+
+            while (scanner.nextLine()) {
+                if (scanner.columns < DISCOUNT_COLUMNS) continue;
+
+                try {
+                    Discount d = new Discount(dictionary.intern(scanner.text(0)), dictionary.intern(scanner.text(1)),
+                        dictionary.intern(scanner.text(2)), dictionary.intern(scanner.text(3)), dictionary.intern(scanner.text(4)),
+                        dictionary.intern(scanner.text(5)), dictionary.intern(scanner.text(6)), dictionary.intern(scanner.text(7)),
+                        scanner.integer(8));
+
+                    validator.validate(d);
+                    sink.accept(d);
+                    count++;
+                } catch (NumberFormatException e) {
+                    System.err.println("Failed to parse number in line: " + scanner.lineText());
+                } catch (ValidationException e) {
+                    System.err.println("Skipping invalid line (" + e.getMessage() + "): " + scanner.lineText());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filePath, e);
+        }
+
+        return count;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, String filePath) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File too large to map in one region: " + filePath);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Walks the mapping line by line and records where each of the first N fields starts and ends.
+     */
+    private static class LineScanner {
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private final int[] fieldStart;
+        private final int[] fieldEnd;
+        private byte[] scratch = new byte[64];
+        private int position;
+        private int lineStart;
+        private int lineEnd;
+        private int columns;
+
+        LineScanner(MappedByteBuffer buffer, int maxColumns) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+            this.fieldStart = new int[maxColumns];
+            this.fieldEnd = new int[maxColumns];
+        }
+
+        void skipLine() {
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+
+        /**
+         * Advances to the next line and splits it; returns false at end of file
+         */
+        boolean nextLine() {
+            if (position >= limit) return false;
+
+            lineStart = position;
+            columns = 0;
+            int start = position;
+            int i = position;
+            while (i < limit) {
+                byte b = buffer.get(i);
+                if (b == '\n') break;
+                if (b == SEPARATOR) {
+                    addField(start, i);
+                    start = i + 1;
+                }
+                i++;
+            }
+            position = i + 1;
+
+            // Ignore the carriage return of CRLF line endings
+            int end = i;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            lineEnd = end;
+            addField(start, end);
+            return true;
+        }
+
+        private void addField(int start, int end) {
+            if (columns < fieldStart.length) {
+                fieldStart[columns] = start;
+                fieldEnd[columns] = end;
+            }
+            columns++;
+        }
+
+        String text(int column) {
+            return decode(fieldStart[column], fieldEnd[column]);
+        }
+
+        String lineText() {
+            return decode(lineStart, lineEnd);
+        }
+
+        private String decode(int start, int end) {
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                scratch[i] = buffer.get(start + i);
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses a plain decimal such as 10.10 without building a String.
+         * Anything unusual (exponents, whitespace, very long numbers) falls back to
+         * Double.parseDouble so the result always matches the OpenCSV path.
+         */
+        double decimal(int column) {
+            int i = fieldStart[column];
+            int end = fieldEnd[column];
+            boolean negative = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) scale++;
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    return Double.parseDouble(text(column));
+                }
+            }
+            if (digits == 0 || digits > 18 || mantissa >= MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(text(column));
+            }
+
+            // Both operands are exact doubles, so the division is correctly rounded like parseDouble
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses an integer such as a discount percentage without building a String
+         */
+        int integer(int column) {
+            int i = fieldStart[column];
+            int end = fieldEnd[column];
+            boolean negative = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            if (i == end || end - i > 9) {
+                return Integer.parseInt(text(column));
+            }
+
+            int value = 0;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return Integer.parseInt(text(column));
+                }
+                value = value * 10 + (b - '0');
+            }
+            return negative ? -value : value;
+        }
+    }
+}
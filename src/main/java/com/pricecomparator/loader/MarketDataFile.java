@@ -0,0 +1,75 @@
+package com.pricecomparator.loader;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A single store/date CSV file from the resources folder, classified by its file name
+ * (e.g. lidl_2025-05-08.csv or lidl_discounts_2025-05-08.csv).
+ */
+public class MarketDataFile {
+    private final File file;
+    private final String storeName;
+    private final LocalDate date;
+    private final boolean discountFile;
+
+    public MarketDataFile(File file, String storeName, LocalDate date, boolean discountFile) {
+        this.file = file;
+        this.storeName = storeName;
+        this.date = date;
+        this.discountFile = discountFile;
+    }
+
+    /**
+     * Parses a file name into a market data file, or returns null if it is not a store/date CSV
+     */
+    public static MarketDataFile fromFile(File file) {
+        String fileName = file.getName();
+        if (!fileName.endsWith(".csv")) return null;
+
+        boolean discountFile = fileName.contains("discounts");
+        String[] parts = fileName.replace(".csv", "").split("_");
+        if (parts.length < (discountFile ? 3 : 2)) return null;
+
+        try {
+            LocalDate date = LocalDate.parse(discountFile ? parts[2] : parts[1]);
+            return new MarketDataFile(file, StringDictionary.shared().intern(normalizeStoreName(parts[0])), date, discountFile);
+        } catch (DateTimeParseException e) {
+            System.out.println("Skipping " + fileName + ": invalid date in file name");
+            return null;
+        }
+    }
+
+    /**
+     * Normalize store name: capitalize first letter, lowercase the rest
+     */
+    public static String normalizeStoreName(String storeName) {
+        return storeName.substring(0, 1).toUpperCase() + storeName.substring(1).toLowerCase();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getFileName() {
+        return file.getName();
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public boolean isDiscountFile() {
+        return discountFile;
+    }
+
+    @Override
+    public String toString() {
+        return file.getName();
+    }
+}
@@ -0,0 +1,69 @@
+package com.pricecomparator.loader;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+
+/**
+ * Product and discount data produced by one load of the resources folder, plus per-file timings.
+ */
+public class MarketDataLoadResult {
+    private final Map<String, Map<LocalDate, List<Product>>> productData;
+    private final Map<String, Map<LocalDate, List<Discount>>> discountData;
+    private final List<FileLoadTiming> timings;
+    private final int parallelism;
+    private final long totalMillis;
+
+    public MarketDataLoadResult(Map<String, Map<LocalDate, List<Product>>> productData,
+                                Map<String, Map<LocalDate, List<Discount>>> discountData,
+                                List<FileLoadTiming> timings, int parallelism, long totalMillis) {
+        this.productData = productData;
+        this.discountData = discountData;
+        this.timings = timings;
+        this.parallelism = parallelism;
+        this.totalMillis = totalMillis;
+    }
+
+    public Map<String, Map<LocalDate, List<Product>>> getProductData() {
+        return productData;
+    }
+
+    public Map<String, Map<LocalDate, List<Discount>>> getDiscountData() {
+        return discountData;
+    }
+
+    public List<FileLoadTiming> getTimings() {
+        return timings;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Formats the per-file timings, slowest first, followed by a summary line
+     */
+    public List<String> formatTimingReport() {
+        List<FileLoadTiming> sorted = new ArrayList<>(timings);
+        sorted.sort((t1, t2) -> Long.compare(t2.getElapsedMillis(), t1.getElapsedMillis()));
+
+        List<String> lines = new ArrayList<>();
+        long sumMillis = 0;
+        int rows = 0;
+        for (FileLoadTiming timing : sorted) {
+            lines.add(timing.toString());
+            sumMillis += timing.getElapsedMillis();
+            rows += timing.getRowCount();
+        }
+        lines.add("Loaded " + timings.size() + " files (" + rows + " rows) in " + totalMillis
+                + " ms wall time, " + sumMillis + " ms parse time, parallelism " + parallelism);
+        lines.add(StringDictionary.shared().formatSavings());
+        return lines;
+    }
+}
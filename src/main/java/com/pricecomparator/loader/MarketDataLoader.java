@@ -2,55 +2,65 @@ package com.pricecomparator.loader;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.time.LocalDate;
 
 import com.pricecomparator.model.Discount;
 import com.pricecomparator.model.Product;
 
 public class MarketDataLoader {
-    
+
     public static final String RESOURCE_PATH = "src/main/resources/";
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    public static final FeedParser DEFAULT_FEED_PARSER = new OpenCsvFeedParser();
+
+    /**
+     * Lists the resources folder once and classifies every store/date CSV in it
+     */
+    public static List<MarketDataFile> listDataFiles() {
+        List<MarketDataFile> dataFiles = new ArrayList<>();
+        File[] files = new File(RESOURCE_PATH).listFiles();
+
+        if (files == null) return dataFiles;
+
+        for (File file : files) {
+            MarketDataFile dataFile = MarketDataFile.fromFile(file);
+            if (dataFile != null) {
+                dataFiles.add(dataFile);
+            }
+        }
+        return dataFiles;
+    }
 
     /**
      * Loads all product files from resources folder
      */
     public static Map<String, Map<LocalDate, List<Product>>> loadAllProductFiles() {
+        return loadAllProductFiles(DEFAULT_FEED_PARSER);
+    }
+
+    /**
+     * Loads all product files from resources folder with the given parser backend
+     */
+    public static Map<String, Map<LocalDate, List<Product>>> loadAllProductFiles(FeedParser parser) {
         Map<String, Map<LocalDate, List<Product>>> storeProductsByDate = new HashMap<>();
-        File folder = new File(RESOURCE_PATH);
-        File[] files = folder.listFiles();
-        
-        if (files == null) return storeProductsByDate;
-        
-        for (File file : files) {
-            String fileName = file.getName();
-            if (fileName.endsWith(".csv") && !fileName.contains("discounts")) {
-                String[] parts = fileName.replace(".csv", "").split("_");
-                if (parts.length < 2) continue;
-                String storeName = parts[0];
-                // Normalize store name: capitalize first letter, lowercase the rest
-                storeName = storeName.substring(0, 1).toUpperCase() + storeName.substring(1).toLowerCase();
-                String fileDateStr = parts[1];
-                
-                try {
-                    LocalDate fileDate = LocalDate.parse(fileDateStr);
-                    List<Product> products = ProductLoader.loadFromCSV(file.getPath());
-                    
-                    // Set datePosted for each product based on file date
-                    for (Product product : products) {
-                        product.setDatePosted(fileDateStr);
-                    }
-                    
-                    // Get or create the date map for this store
-                    Map<LocalDate, List<Product>> dateMap = storeProductsByDate.computeIfAbsent(storeName, k -> new HashMap<>());
-                    dateMap.put(fileDate, products);
-                    
-                    //System.out.println("Loaded " + products.size() + " products for " + storeName + " from " + fileName);
-                } catch (Exception e) {
-                    System.out.println("Error loading products from " + fileName + ": " + e.getMessage());
-                }
+
+        for (MarketDataFile file : listDataFiles()) {
+            if (file.isDiscountFile()) continue;
+            try {
+                List<Product> products = loadProductFile(file, parser);
+
+                // Get or create the date map for this store
+                Map<LocalDate, List<Product>> dateMap = storeProductsByDate.computeIfAbsent(file.getStoreName(), k -> new HashMap<>());
+                dateMap.put(file.getDate(), products);
+
+                //System.out.println("Loaded " + products.size() + " products for " + storeName + " from " + fileName);
+            } catch (Exception e) {
+                System.out.println("Error loading products from " + file.getFileName() + ": " + e.getMessage());
             }
         }
-        
+
         return storeProductsByDate;
     }
 
@@ -58,42 +68,210 @@ public class MarketDataLoader {
      * Loads all discount files from resources folder
      */
     public static Map<String, Map<LocalDate, List<Discount>>> loadAllDiscountFiles() {
+        return loadAllDiscountFiles(DEFAULT_FEED_PARSER);
+    }
+
+    /**
+     * Loads all discount files from resources folder with the given parser backend
+     */
+    public static Map<String, Map<LocalDate, List<Discount>>> loadAllDiscountFiles(FeedParser parser) {
         Map<String, Map<LocalDate, List<Discount>>> storeDiscountsByDate = new HashMap<>();
-        File folder = new File(RESOURCE_PATH);
-        File[] files = folder.listFiles();
-        
-        if (files == null) return storeDiscountsByDate;
-        
-        for (File file : files) {
-            String fileName = file.getName();
-            if (fileName.contains("discounts") && fileName.endsWith(".csv")) {
-                String[] parts = fileName.replace(".csv", "").split("_");
-                if (parts.length < 3) continue;
-                String storeName = parts[0];
-                // Normalize store name: capitalize first letter, lowercase the rest
-                storeName = storeName.substring(0, 1).toUpperCase() + storeName.substring(1).toLowerCase();
-                String fileDateStr = parts[2];
-                
-                try {
-                    LocalDate fileDate = LocalDate.parse(fileDateStr);
-                    List<Discount> discounts = DiscountLoader.loadFromCSV(file.getPath());
-                    
-                    // Set datePosted for each discount based on file date
-                    for (Discount discount : discounts) {
-                        discount.setDatePosted(fileDateStr);
-                    }
-                    
-                    // Get or create the date map for this store
-                    Map<LocalDate, List<Discount>> dateMap = storeDiscountsByDate.computeIfAbsent(storeName, k -> new HashMap<>());
-                    dateMap.put(fileDate, discounts);
-                    
-                    //System.out.println("Loaded " + discounts.size() + " discounts for " + storeName + " from " + fileName);
-                } catch (Exception e) {
-                    System.out.println("Error loading discounts from " + fileName + ": " + e.getMessage());
-                }
+
+        for (MarketDataFile file : listDataFiles()) {
+            if (!file.isDiscountFile()) continue;
+            try {
+                List<Discount> discounts = loadDiscountFile(file, parser);
+
+                // Get or create the date map for this store
+                Map<LocalDate, List<Discount>> dateMap = storeDiscountsByDate.computeIfAbsent(file.getStoreName(), k -> new HashMap<>());
+                dateMap.put(file.getDate(), discounts);
+
+                //System.out.println("Loaded " + discounts.size() + " discounts for " + storeName + " from " + fileName);
+            } catch (Exception e) {
+                System.out.println("Error loading discounts from " + file.getFileName() + ": " + e.getMessage());
             }
         }
-        
+
         return storeDiscountsByDate;
     }
+
+    /**
+     * Loads product and discount files together on a bounded thread pool.
+     * The folder is listed once; every file is parsed by its own task and the
+     * results are merged on the calling thread, so the maps are never shared
+     * between workers.
+     *
+     * @param parallelism Maximum number of files parsed at the same time
+     */
+    public static MarketDataLoadResult loadAllFilesInParallel(int parallelism) {
+        return loadAllFilesInParallel(parallelism, DEFAULT_FEED_PARSER);
+    }
+
+    /**
+     * Loads product and discount files together on a bounded thread pool with the given parser backend
+     *
+     * @param parallelism Maximum number of files parsed at the same time
+     * @param parser Backend used to parse each file
+     */
+    public static MarketDataLoadResult loadAllFilesInParallel(int parallelism, FeedParser parser) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        long start = System.nanoTime();
+        List<MarketDataFile> files = listDataFiles();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, files.size())));
+        List<Future<FileLoad>> futures = new ArrayList<>();
+        try {
+            for (MarketDataFile file : files) {
+                futures.add(pool.submit(() -> loadFile(file, parser)));
+            }
+
+            Map<String, Map<LocalDate, List<Product>>> storeProductsByDate = new HashMap<>();
+            Map<String, Map<LocalDate, List<Discount>>> storeDiscountsByDate = new HashMap<>();
+            List<FileLoadTiming> timings = new ArrayList<>();
+
+            for (Future<FileLoad> future : futures) {
+                FileLoad load = waitFor(future);
+                timings.add(load.timing);
+                if (load.timing.isFailed()) {
+                    System.out.println("Error loading " + load.file.getFileName() + ": " + load.timing.getError());
+                    continue;
+                }
+                if (load.file.isDiscountFile()) {
+                    storeDiscountsByDate.computeIfAbsent(load.file.getStoreName(), k -> new HashMap<>())
+                        .put(load.file.getDate(), load.discounts);
+                } else {
+                    storeProductsByDate.computeIfAbsent(load.file.getStoreName(), k -> new HashMap<>())
+                        .put(load.file.getDate(), load.products);
+                }
+            }
+
+            long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new MarketDataLoadResult(storeProductsByDate, storeDiscountsByDate, timings, parallelism, totalMillis);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads a single product file and stamps each product with the file date
+     */
+    public static List<Product> loadProductFile(MarketDataFile file) {
+        return loadProductFile(file, DEFAULT_FEED_PARSER);
+    }
+
+    /**
+     * Loads a single product file with the given parser backend
+     */
+    public static List<Product> loadProductFile(MarketDataFile file, FeedParser parser) {
+        List<Product> products = new ArrayList<>();
+        streamProductFile(file, parser, products::add);
+        return products;
+    }
+
+    /**
+     * Loads a single discount file and stamps each discount with the file date
+     */
+    public static List<Discount> loadDiscountFile(MarketDataFile file) {
+        return loadDiscountFile(file, DEFAULT_FEED_PARSER);
+    }
+
+    /**
+     * Loads a single discount file with the given parser backend
+     */
+    public static List<Discount> loadDiscountFile(MarketDataFile file, FeedParser parser) {
+        List<Discount> discounts = new ArrayList<>();
+        streamDiscountFile(file, parser, discounts::add);
+        return discounts;
+    }
+
+    /**
+     * Streams a single product file row by row into the sink, stamping each product with the file date
+     *
+     * @return The number of products passed to the sink
+     */
+    public static int streamProductFile(MarketDataFile file, Consumer<Product> sink) {
+        return streamProductFile(file, DEFAULT_FEED_PARSER, sink);
+    }
+
+    /**
+     * Streams a single product file into the sink with the given parser backend
+     */
+    public static int streamProductFile(MarketDataFile file, FeedParser parser, Consumer<Product> sink) {
+        // One shared date String for every row of every file from that day
+        String fileDateStr = StringDictionary.shared().intern(file.getDate().toString());
+        return parser.parseProducts(file.getFile().getPath(), product -> {
+            // Set datePosted for each product based on file date
+            product.setDatePosted(fileDateStr);
+            sink.accept(product);
+        });
+    }
+
+    /**
+     * Streams a single discount file row by row into the sink, stamping each discount with the file date
+     *
+     * @return The number of discounts passed to the sink
+     */
+    public static int streamDiscountFile(MarketDataFile file, Consumer<Discount> sink) {
+        return streamDiscountFile(file, DEFAULT_FEED_PARSER, sink);
+    }
+
+    /**
+     * Streams a single discount file into the sink with the given parser backend
+     */
+    public static int streamDiscountFile(MarketDataFile file, FeedParser parser, Consumer<Discount> sink) {
+        String fileDateStr = StringDictionary.shared().intern(file.getDate().toString());
+        return parser.parseDiscounts(file.getFile().getPath(), discount -> {
+            // Set datePosted for each discount based on file date
+            discount.setDatePosted(fileDateStr);
+            sink.accept(discount);
+        });
+    }
+
+    private static FileLoad loadFile(MarketDataFile file, FeedParser parser) {
+        long start = System.nanoTime();
+        FileLoad load = new FileLoad(file);
+        String error = null;
+        int rows = 0;
+        try {
+            if (file.isDiscountFile()) {
+                load.discounts = loadDiscountFile(file, parser);
+                rows = load.discounts.size();
+            } else {
+                load.products = loadProductFile(file, parser);
+                rows = load.products.size();
+            }
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        load.timing = new FileLoadTiming(file.getFileName(), rows, elapsedMillis, Thread.currentThread().getName(), error);
+        return load;
+    }
+
+    private static FileLoad waitFor(Future<FileLoad> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading market data", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load market data", e.getCause());
+        }
+    }
+
+    /**
+     * Result of parsing one file on a worker thread
+     */
+    private static class FileLoad {
+        private final MarketDataFile file;
+        private List<Product> products;
+        private List<Discount> discounts;
+        private FileLoadTiming timing;
+
+        FileLoad(MarketDataFile file) {
+            this.file = file;
+        }
+    }
 }
@@ -0,0 +1,343 @@
+package com.pricecomparator.loader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.EpochDays;
+import com.pricecomparator.model.Product;
+
+/**
+ * Compact binary snapshot of the loaded product and discount partitions.
+ * <p>
+ * The file is columnar: every String is stored once in a dictionary and referenced by
+ * an int code, prices and quantities are primitive double columns and dates are epoch days.
+ * It also records the name, size and modified time of each source CSV, so a snapshot is
+ * only reused while the resources folder is unchanged. Rows are not validated again on read.
+ */
+public class MarketDataSnapshot {
+    public static final String DEFAULT_PATH = "cache/market_data.snapshot";
+
+    private static final int MAGIC = 0x50435331; // "PCS1"
+    private static final int VERSION = 1;
+    private static final int NULL_CODE = -1;
+    private static final int NULL_DAY = Integer.MIN_VALUE;
+
+    private final Map<String, Map<LocalDate, List<Product>>> productData;
+    private final Map<String, Map<LocalDate, List<Discount>>> discountData;
+
+    private MarketDataSnapshot(Map<String, Map<LocalDate, List<Product>>> productData,
+                               Map<String, Map<LocalDate, List<Discount>>> discountData) {
+        this.productData = productData;
+        this.discountData = discountData;
+    }
+
+    public Map<String, Map<LocalDate, List<Product>>> getProductData() {
+        return productData;
+    }
+
+    public Map<String, Map<LocalDate, List<Discount>>> getDiscountData() {
+        return discountData;
+    }
+
+    /**
+     * Summarizes a snapshot load for the startup report
+     */
+    public String formatLoadReport(Path snapshotPath, long elapsedMillis) {
+        return "Loaded snapshot " + snapshotPath + ": " + (countPartitions(productData) + countPartitions(discountData))
+                + " partitions (" + (countRows(productData) + countRows(discountData)) + " rows) in " + elapsedMillis + " ms";
+    }
+
+    /**
+     * Reads the snapshot if it exists and was built from exactly the given source files
+     *
+     * @return The snapshot, or null if it is missing, stale or unreadable
+     */
+    public static MarketDataSnapshot readIfFresh(Path snapshotPath, List<MarketDataFile> sourceFiles) {
+        if (!Files.isRegularFile(snapshotPath)) return null;
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            if (!readManifest(in).equals(manifestOf(sourceFiles))) return null;
+
+            // Shared with the parsers and ingested files, as the CSV path would be
+            StringDictionary shared = StringDictionary.shared();
+            String[] dictionary = new String[in.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = shared.intern(readString(in));
+            }
+
+            Map<String, Map<LocalDate, List<Product>>> productData = new HashMap<>();
+            int productPartitions = in.getInt();
+            for (int p = 0; p < productPartitions; p++) {
+                String store = dictionary[in.getInt()];
+                LocalDate date = LocalDate.ofEpochDay(in.getInt());
+                productData.computeIfAbsent(store, k -> new HashMap<>()).put(date, readProducts(in, dictionary));
+            }
+
+            Map<String, Map<LocalDate, List<Discount>>> discountData = new HashMap<>();
+            int discountPartitions = in.getInt();
+            for (int p = 0; p < discountPartitions; p++) {
+                String store = dictionary[in.getInt()];
+                LocalDate date = LocalDate.ofEpochDay(in.getInt());
+                discountData.computeIfAbsent(store, k -> new HashMap<>()).put(date, readDiscounts(in, dictionary));
+            }
+
+            return new MarketDataSnapshot(productData, discountData);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: Could not read snapshot " + snapshotPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the partitions to a new snapshot, replacing any previous one atomically
+     *
+     * @param sourceFiles The CSV files the partitions were loaded from
+     */
+    public static void write(Path snapshotPath,
+                             Map<String, Map<LocalDate, List<Product>>> productData,
+                             Map<String, Map<LocalDate, List<Discount>>> discountData,
+                             List<MarketDataFile> sourceFiles) throws IOException {
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        productData.forEach((store, dateMap) -> {
+            encode(codes, store);
+            dateMap.values().forEach(products -> products.forEach(p -> {
+                encode(codes, p.getId());
+                encode(codes, p.getName());
+                encode(codes, p.getCategory());
+                encode(codes, p.getBrand());
+                encode(codes, p.getUnit());
+                encode(codes, p.getCurrency());
+            }));
+        });
+        discountData.forEach((store, dateMap) -> {
+            encode(codes, store);
+            dateMap.values().forEach(discounts -> discounts.forEach(d -> {
+                encode(codes, d.getProductId());
+                encode(codes, d.getProductName());
+                encode(codes, d.getBrand());
+                encode(codes, d.getQuantity());
+                encode(codes, d.getUnit());
+                encode(codes, d.getCategory());
+            }));
+        });
+
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, "snapshot", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeManifest(out, manifestOf(sourceFiles));
+
+            out.writeInt(codes.size());
+            for (String value : codes.keySet()) {
+                writeString(out, value);
+            }
+
+            out.writeInt(countPartitions(productData));
+            for (Map.Entry<String, Map<LocalDate, List<Product>>> store : productData.entrySet()) {
+                for (Map.Entry<LocalDate, List<Product>> partition : store.getValue().entrySet()) {
+                    out.writeInt(codes.get(store.getKey()));
+                    out.writeInt((int) partition.getKey().toEpochDay());
+                    writeProducts(out, partition.getValue(), codes);
+                }
+            }
+
+            out.writeInt(countPartitions(discountData));
+            for (Map.Entry<String, Map<LocalDate, List<Discount>>> store : discountData.entrySet()) {
+                for (Map.Entry<LocalDate, List<Discount>> partition : store.getValue().entrySet()) {
+                    out.writeInt(codes.get(store.getKey()));
+                    out.writeInt((int) partition.getKey().toEpochDay());
+                    writeDiscounts(out, partition.getValue(), codes);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeProducts(DataOutputStream out, List<Product> products, Map<String, Integer> codes) throws IOException {
+        out.writeInt(products.size());
+        for (Product p : products) out.writeInt(code(codes, p.getId()));
+        for (Product p : products) out.writeInt(code(codes, p.getName()));
+        for (Product p : products) out.writeInt(code(codes, p.getCategory()));
+        for (Product p : products) out.writeInt(code(codes, p.getBrand()));
+        for (Product p : products) out.writeDouble(p.getQuantity());
+        for (Product p : products) out.writeInt(code(codes, p.getUnit()));
+        for (Product p : products) out.writeDouble(p.getPrice());
+        for (Product p : products) out.writeInt(code(codes, p.getCurrency()));
+        for (Product p : products) out.writeInt(toEpochDay(p.getDatePosted()));
+    }
+
+    private static List<Product> readProducts(ByteBuffer in, String[] dictionary) {
+        int rows = in.getInt();
+        int[] ids = readInts(in, rows);
+        int[] names = readInts(in, rows);
+        int[] categories = readInts(in, rows);
+        int[] brands = readInts(in, rows);
+        double[] quantities = readDoubles(in, rows);
+        int[] units = readInts(in, rows);
+        double[] prices = readDoubles(in, rows);
+        int[] currencies = readInts(in, rows);
+        int[] datesPosted = readInts(in, rows);
+
+        List<Product> products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            products.add(new Product(decode(dictionary, ids[i]), decode(dictionary, names[i]),
+                    decode(dictionary, categories[i]), decode(dictionary, brands[i]), quantities[i],
+                    decode(dictionary, units[i]), prices[i], decode(dictionary, currencies[i]),
+                    fromEpochDay(datesPosted[i])));
+        }
+        return products;
+    }
+
+    private static void writeDiscounts(DataOutputStream out, List<Discount> discounts, Map<String, Integer> codes) throws IOException {
+        out.writeInt(discounts.size());
+        for (Discount d : discounts) out.writeInt(code(codes, d.getProductId()));
+        for (Discount d : discounts) out.writeInt(code(codes, d.getProductName()));
+        for (Discount d : discounts) out.writeInt(code(codes, d.getBrand()));
+        for (Discount d : discounts) out.writeInt(code(codes, d.getQuantity()));
+        for (Discount d : discounts) out.writeInt(code(codes, d.getUnit()));
+        for (Discount d : discounts) out.writeInt(code(codes, d.getCategory()));
+        for (Discount d : discounts) out.writeInt(toEpochDay(d.getFromDate()));
+        for (Discount d : discounts) out.writeInt(toEpochDay(d.getToDate()));
+        for (Discount d : discounts) out.writeInt(d.getDiscountPercent());
+        for (Discount d : discounts) out.writeInt(toEpochDay(d.getDatePosted()));
+    }
+
+    private static List<Discount> readDiscounts(ByteBuffer in, String[] dictionary) {
+        int rows = in.getInt();
+        int[] productIds = readInts(in, rows);
+        int[] names = readInts(in, rows);
+        int[] brands = readInts(in, rows);
+        int[] quantities = readInts(in, rows);
+        int[] units = readInts(in, rows);
+        int[] categories = readInts(in, rows);
+        int[] fromDates = readInts(in, rows);
+        int[] toDates = readInts(in, rows);
+        int[] percents = readInts(in, rows);
+        int[] datesPosted = readInts(in, rows);
+
+        List<Discount> discounts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            discounts.add(new Discount(decode(dictionary, productIds[i]), decode(dictionary, names[i]),
+                    decode(dictionary, brands[i]), decode(dictionary, quantities[i]), decode(dictionary, units[i]),
+                    decode(dictionary, categories[i]), fromEpochDay(fromDates[i]), fromEpochDay(toDates[i]),
+                    percents[i], fromEpochDay(datesPosted[i])));
+        }
+        return discounts;
+    }
+
+    private static List<String> manifestOf(List<MarketDataFile> sourceFiles) {
+        List<String> manifest = new ArrayList<>();
+        for (MarketDataFile file : sourceFiles) {
+            manifest.add(file.getFileName() + ":" + file.getFile().length() + ":" + file.getFile().lastModified());
+        }
+        Collections.sort(manifest);
+        return manifest;
+    }
+
+    private static void writeManifest(DataOutputStream out, List<String> manifest) throws IOException {
+        out.writeInt(manifest.size());
+        for (String entry : manifest) {
+            writeString(out, entry);
+        }
+    }
+
+    private static List<String> readManifest(ByteBuffer in) {
+        int size = in.getInt();
+        List<String> manifest = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            manifest.add(readString(in));
+        }
+        return manifest;
+    }
+
+    private static void encode(Map<String, Integer> codes, String value) {
+        if (value != null && !codes.containsKey(value)) {
+            codes.put(value, codes.size());
+        }
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        return value == null ? NULL_CODE : codes.get(value);
+    }
+
+    private static String decode(String[] dictionary, int code) {
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    /**
+     * Dates are stored as epoch days, so only ISO dates that print back identically are accepted
+     */
+    private static int toEpochDay(String date) {
+        if (date == null) return NULL_DAY;
+        LocalDate parsed = LocalDate.parse(date);
+        if (!parsed.toString().equals(date)) {
+            throw new IllegalArgumentException("Date cannot be stored in a snapshot: " + date);
+        }
+        return (int) parsed.toEpochDay();
+    }
+
+    private static String fromEpochDay(int epochDay) {
+        // One shared string per day rather than one per row
+        return epochDay == NULL_DAY ? null : EpochDays.format(epochDay);
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer in, int count) {
+        double[] values = new double[count];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + count * Double.BYTES);
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static <T> int countPartitions(Map<String, Map<LocalDate, List<T>>> data) {
+        int count = 0;
+        for (Map<LocalDate, List<T>> dateMap : data.values()) {
+            count += dateMap.size();
+        }
+        return count;
+    }
+
+    private static <T> long countRows(Map<String, Map<LocalDate, List<T>>> data) {
+        long count = 0;
+        for (Map<LocalDate, List<T>> dateMap : data.values()) {
+            for (List<T> rows : dateMap.values()) {
+                count += rows.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,22 @@
+package com.pricecomparator.loader;
+
+import java.util.function.Consumer;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+
+/**
+ * Feed parser backed by OpenCSV through ProductLoader and DiscountLoader.
+ */
+public class OpenCsvFeedParser implements FeedParser {
+
+    @Override
+    public int parseProducts(String filePath, Consumer<Product> sink) {
+        return ProductLoader.streamFromCSV(filePath, sink);
+    }
+
+    @Override
+    public int parseDiscounts(String filePath, Consumer<Discount> sink) {
+        return DiscountLoader.streamFromCSV(filePath, sink);
+    }
+}
@@ -3,47 +3,75 @@ package com.pricecomparator.loader;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.CSVParserBuilder;
-import com.opencsv.exceptions.CsvException;
+import com.opencsv.exceptions.CsvValidationException;
 import com.pricecomparator.model.Product;
 import com.pricecomparator.validator.ProductValidator;
+import com.pricecomparator.validator.ValidationException;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ProductLoader {
 
     public static List<Product> loadFromCSV(String filePath) {
         List<Product> products = new ArrayList<>();
+        streamFromCSV(filePath, products::add);
+        return products;
+    }
+
+    /**
+     * Parses and validates the file one row at a time, handing each product to the sink
+     * as soon as it is built, so no list of rows is ever held in memory.
+     *
+     * @param filePath Path of a semicolon separated product file
+     * @param sink Receives every valid product in file order
+     * @return The number of products passed to the sink
+     * @throws UncheckedIOException If the file cannot be read to the end, so no partial file is used
+     */
+    public static int streamFromCSV(String filePath, Consumer<Product> sink) {
         ProductValidator validator = new ProductValidator();
+        StringDictionary dictionary = StringDictionary.shared();
+        int count = 0;
 
-        try (CSVReader reader = new CSVReaderBuilder(new FileReader(filePath))
+        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))
                 .withCSVParser(new CSVParserBuilder().withSeparator(';').build())
+                .withSkipLines(1)
                 .build()) {
 
-            List<String[]> lines = reader.readAll();
-            lines.remove(0); 
-
-            for (String[] line : lines) {
+            String[] line;
+            while ((line = reader.readNext()) != null) {
                 if (line.length < 8) continue;
 
                 try {
-                    Product p = new Product(line[0], line[1], line[2], line[3], 
-                        Double.parseDouble(line[4]), line[5], Double.parseDouble(line[6]), line[7]);
-
+                    double price = Double.parseDouble(line[6]);
+                    validator.validatePrice(price);
+                    // Repeated values share one String across rows and files
+                    Product p = new Product(dictionary.intern(line[0]), dictionary.intern(line[1]),
+                        dictionary.intern(line[2]), dictionary.intern(line[3]), Double.parseDouble(line[4]),
+                        dictionary.intern(line[5]), price, dictionary.intern(line[7]));
 
-                    validator.validate(p); 
-                    products.add(p);
+                    validator.validate(p);
+                    sink.accept(p);
+                    count++;
                 } catch (NumberFormatException e) {
                     System.err.println("Failed to parse number in line: " + String.join(";", line));
+                } catch (ValidationException e) {
+                    System.err.println("Skipping invalid line (" + e.getMessage() + "): " + String.join(";", line));
                 }
             }
 
-        } catch (IOException | CsvException e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filePath, e);
+        } catch (CsvValidationException e) {
+            throw new UncheckedIOException("Could not read " + filePath, new IOException(e.getMessage(), e));
         }
 
-        return products;
+        return count;
     }
 }
@@ -0,0 +1,135 @@
+package com.pricecomparator.loader;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns a stable int code to every distinct string, so repeated values can be stored as codes,
+ * and hands out one canonical instance per value, so loaded rows share their repeated Strings.
+ * <p>
+ * Codes are never reused or removed, since any partition may still hold them. So the dictionary
+ * only grows: values of reloaded or evicted files stay until the process exits, and a long-running
+ * watcher keeps every distinct value it ever ingested. formatSavings reports that retained heap
+ * next to the savings. Encoding is synchronized; codeOf, decode and interning a value that is
+ * already known do not lock.
+ */
+public class StringDictionary {
+    public static final int NULL_CODE = -1;
+
+    private static final StringDictionary SHARED = new StringDictionary();
+    // Map node, boxed code and the map and array slots kept per distinct value
+    private static final long ENTRY_BYTES = 32 + 16 + 8 + 8;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[256];
+    private int size;
+    private long bytesHeld;
+    private final AtomicLong duplicatesDropped = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * The dictionary shared by all loaded market data, kept for the life of the process
+     */
+    public static StringDictionary shared() {
+        return SHARED;
+    }
+
+    public int encode(String value) {
+        if (value == null) return NULL_CODE;
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Looks up a code without adding the value
+     *
+     * @return The code, or NULL_CODE if the value was never encoded
+     */
+    public int codeOf(String value) {
+        if (value == null) return NULL_CODE;
+        Integer code = codes.get(value);
+        return code != null ? code : NULL_CODE;
+    }
+
+    /**
+     * Returns the canonical instance equal to value, adding value if it is new
+     */
+    public String intern(String value) {
+        if (value == null) return null;
+        String canonical = values[encode(value)];
+        if (canonical != value) {
+            duplicatesDropped.incrementAndGet();
+            bytesSaved.addAndGet(estimateBytes(canonical));
+        }
+        return canonical;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Number of interned Strings that were replaced by an existing instance
+     */
+    public long getDuplicatesDropped() {
+        return duplicatesDropped.get();
+    }
+
+    /**
+     * Estimated heap no longer held by the dropped duplicates
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * Estimated heap held by the dictionary itself: every distinct value with its map entry, boxed
+     * code and array slot. It is never released, so it only grows as new values are ingested.
+     */
+    public synchronized long getBytesHeld() {
+        return bytesHeld;
+    }
+
+    public String formatSavings() {
+        return String.format("String dictionary: %d distinct values holding ~%.1f MB (never released), "
+                        + "%d duplicates dropped, ~%.1f MB saved",
+                size(), getBytesHeld() / (1024.0 * 1024.0), getDuplicatesDropped(), getBytesSaved() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * A String costs its 24 byte object plus a 16 byte array header and its characters,
+     * one byte each for Latin-1 text and two otherwise, padded to 8 bytes
+     */
+    private static long estimateBytes(String value) {
+        int charBytes = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                charBytes = value.length() * 2;
+                break;
+            }
+        }
+        return 24 + ((16 + charBytes + 7) & ~7);
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) return existing;
+
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        bytesHeld += estimateBytes(value) + ENTRY_BYTES;
+        // Published after the value is stored, so a code seen by a reader always decodes
+        codes.put(value, size);
+        return size++;
+    }
+}
@@ -0,0 +1,45 @@
+package com.pricecomparator.model;
+
+/**
+ * A price alert whose target was reached by an ingested price change
+ */
+public class AlertTrigger {
+    private final PriceAlert alert;
+    private final String store;
+    private final double price;
+    private final String date;
+
+    /**
+     * @param store The store now selling the product at the best price
+     * @param price The best discounted price that reached the target
+     * @param date  The date of the ingested file
+     */
+    public AlertTrigger(PriceAlert alert, String store, double price, String date) {
+        this.alert = alert;
+        this.store = store;
+        this.price = price;
+        this.date = date;
+    }
+
+    public PriceAlert getAlert() {
+        return alert;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    @Override
+    public String toString() {
+        return "PRICE ALERT: " + alert.getProductName() + " is now available at " + String.format("%.2f", price)
+                + " in " + store + " on " + date + " (target: " + alert.getTargetPrice() + ")";
+    }
+}
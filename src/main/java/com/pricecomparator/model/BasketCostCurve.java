@@ -0,0 +1,62 @@
+package com.pricecomparator.model;
+
+/**
+ * The optimized cost of one basket on every day of a date window
+ */
+public class BasketCostCurve {
+    private final int firstDay;
+    private final double[] totals;
+    private final int[] missingCounts;
+
+    /**
+     * @param totals        Cost of the found products on each day, starting at fromDate
+     * @param missingCounts Number of basket products no store sells on each day
+     */
+    public BasketCostCurve(String fromDate, double[] totals, int[] missingCounts) {
+        if (totals.length != missingCounts.length) {
+            throw new IllegalArgumentException("Got " + totals.length + " totals for " + missingCounts.length + " days");
+        }
+        this.firstDay = EpochDays.parse(fromDate);
+        this.totals = totals.clone();
+        this.missingCounts = missingCounts.clone();
+    }
+
+    public int getDayCount() {
+        return totals.length;
+    }
+
+    public String getDate(int day) {
+        return EpochDays.format(firstDay + day);
+    }
+
+    public double getTotal(int day) {
+        return totals[day];
+    }
+
+    public int getMissingCount(int day) {
+        return missingCounts[day];
+    }
+
+    /**
+     * @return The day with the fewest missing products and, among those, the lowest cost;
+     *         the earliest one on ties
+     */
+    public int getCheapestDay() {
+        int best = 0;
+        for (int day = 1; day < totals.length; day++) {
+            if (missingCounts[day] < missingCounts[best]
+                    || (missingCounts[day] == missingCounts[best] && totals[day] < totals[best])) {
+                best = day;
+            }
+        }
+        return best;
+    }
+
+    public String getCheapestDate() {
+        return getDate(getCheapestDay());
+    }
+
+    public double getCheapestTotal() {
+        return totals[getCheapestDay()];
+    }
+}
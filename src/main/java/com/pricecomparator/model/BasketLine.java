@@ -0,0 +1,63 @@
+package com.pricecomparator.model;
+
+/**
+ * One product of an optimized basket: the store to buy it from and what it costs there
+ */
+public class BasketLine {
+    private final String productId;
+    private final String productName;
+    private final String store;
+    private final int quantity;
+    private final double originalUnitPrice;
+    private final double unitPrice; // after the discount
+    private final int discountPercent;
+
+    public BasketLine(String productId, String productName, String store, int quantity,
+                      double originalUnitPrice, double unitPrice, int discountPercent) {
+        this.productId = productId;
+        this.productName = productName;
+        this.store = store;
+        this.quantity = quantity;
+        this.originalUnitPrice = originalUnitPrice;
+        this.unitPrice = unitPrice;
+        this.discountPercent = discountPercent;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getOriginalUnitPrice() {
+        return originalUnitPrice;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public double getTotal() {
+        return unitPrice * quantity;
+    }
+
+    @Override
+    public String toString() {
+        return productName + (quantity > 1 ? " x" + quantity : "") + " at " + store + ": "
+                + String.format("%.2f", getTotal()) + " RON" + (discountPercent > 0 ? " (-" + discountPercent + "%)" : "");
+    }
+}
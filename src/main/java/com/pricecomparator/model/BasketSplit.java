@@ -0,0 +1,76 @@
+package com.pricecomparator.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of optimizing one basket: where to buy each product and the resulting totals
+ */
+public class BasketSplit {
+    private final String basketId;
+    private final String date;
+    private final List<BasketLine> lines;
+    private final List<String> missingProductIds;
+    private final double originalTotal;
+    private final double optimizedTotal;
+
+    public BasketSplit(String basketId, String date, List<BasketLine> lines, List<String> missingProductIds,
+                       double originalTotal, double optimizedTotal) {
+        this.basketId = basketId;
+        this.date = date;
+        this.lines = Collections.unmodifiableList(lines);
+        this.missingProductIds = Collections.unmodifiableList(missingProductIds);
+        this.originalTotal = originalTotal;
+        this.optimizedTotal = optimizedTotal;
+    }
+
+    public String getBasketId() {
+        return basketId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * @return The found products, in basket order
+     */
+    public List<BasketLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return Products no store sells on the date, in basket order
+     */
+    public List<String> getMissingProductIds() {
+        return missingProductIds;
+    }
+
+    public double getOriginalTotal() {
+        return originalTotal;
+    }
+
+    public double getOptimizedTotal() {
+        return optimizedTotal;
+    }
+
+    public double getSavings() {
+        return originalTotal - optimizedTotal;
+    }
+
+    /**
+     * @return The same result for another basket; lines and totals are shared
+     */
+    public BasketSplit withBasketId(String basketId) {
+        return Objects.equals(basketId, this.basketId)
+                ? this
+                : new BasketSplit(basketId, date, lines, missingProductIds, originalTotal, optimizedTotal);
+    }
+
+    @Override
+    public String toString() {
+        return "Basket " + basketId + " on " + date + ": " + lines.size() + " products, "
+                + String.format("%.2f", optimizedTotal) + " RON (saved " + String.format("%.2f", getSavings()) + " RON)";
+    }
+}
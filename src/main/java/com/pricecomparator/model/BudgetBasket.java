@@ -0,0 +1,71 @@
+package com.pricecomparator.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The wish list items picked to fit a budget, with where to buy them
+ */
+public class BudgetBasket {
+    private final double budget;
+    private final BasketSplit split;
+    private final List<String> skippedProductIds;
+    private final long priorityCovered;
+    private final long priorityTotal;
+    private final boolean optimal;
+    private final long remainingBani;
+
+    /**
+     * @param remainingBani The budget left after the picked items, counted in bani
+     */
+    public BudgetBasket(double budget, BasketSplit split, List<String> skippedProductIds,
+                        long priorityCovered, long priorityTotal, boolean optimal, long remainingBani) {
+        this.budget = budget;
+        this.split = split;
+        this.skippedProductIds = Collections.unmodifiableList(skippedProductIds);
+        this.priorityCovered = priorityCovered;
+        this.priorityTotal = priorityTotal;
+        this.optimal = optimal;
+        this.remainingBani = remainingBani;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return The picked items; products no store sells are listed as missing
+     */
+    public BasketSplit getSplit() {
+        return split;
+    }
+
+    /**
+     * @return The products that are sold but were left out to stay within budget
+     */
+    public List<String> getSkippedProductIds() {
+        return skippedProductIds;
+    }
+
+    public long getPriorityCovered() {
+        return priorityCovered;
+    }
+
+    /**
+     * @return The priority of every sold item on the wish list
+     */
+    public long getPriorityTotal() {
+        return priorityTotal;
+    }
+
+    /**
+     * @return Whether the pick is proven best, rather than the best found before the time limit
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    public double getRemainingBudget() {
+        return remainingBani / 100.0;
+    }
+}
@@ -11,6 +11,10 @@ public class Discount {
     private String toDate;
     private int discountPercent;
     private String datePosted; // Date when this discount was recorded (from CSV filename)
+    // The same dates as epoch days, parsed once so validity checks compare ints
+    private int fromEpochDay;
+    private int toEpochDay;
+    private int datePostedEpochDay = EpochDays.NONE;
 
     public Discount(String productId, String name, String brand, String quantity, String unit,
                     String category, String fromDate, String toDate, int discountPercent) {
@@ -24,6 +28,8 @@ public class Discount {
         this.toDate = toDate;
         this.discountPercent = discountPercent;
         this.datePosted = null; // Will be set based on source file date
+        this.fromEpochDay = EpochDays.parse(fromDate);
+        this.toEpochDay = EpochDays.parse(toDate);
     }
 
     public Discount(String productId, String name, String brand, String quantity, String unit,
@@ -37,7 +43,9 @@ public class Discount {
         this.fromDate = fromDate;
         this.toDate = toDate;
         this.discountPercent = discountPercent;
-        this.datePosted = datePosted;
+        this.fromEpochDay = EpochDays.parse(fromDate);
+        this.toEpochDay = EpochDays.parse(toDate);
+        setDatePosted(datePosted);
     }
 
     public String getDatePosted() {
@@ -46,6 +54,11 @@ public class Discount {
 
     public void setDatePosted(String datePosted) {
         this.datePosted = datePosted;
+        this.datePostedEpochDay = EpochDays.parse(datePosted);
+    }
+
+    public int getDatePostedEpochDay() {
+        return datePostedEpochDay;
     }
 
     @Override
@@ -66,6 +79,18 @@ public class Discount {
         return brand;
     }
 
+    public String getQuantity() {
+        return quantity;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
     public String getProductId() {
         return productId;
     }
@@ -77,4 +102,20 @@ public class Discount {
     public String getToDate() {
         return toDate;
     }
+
+    public int getFromEpochDay() {
+        return fromEpochDay;
+    }
+
+    public int getToEpochDay() {
+        return toEpochDay;
+    }
+
+    /**
+     * Checks the validity interval, both ends included; a discount with an unreadable date is never active
+     */
+    public boolean isActiveOn(long epochDay) {
+        return fromEpochDay != EpochDays.NONE && toEpochDay != EpochDays.NONE
+                && fromEpochDay <= epochDay && epochDay <= toEpochDay;
+    }
 }
@@ -0,0 +1,56 @@
+package com.pricecomparator.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the best discounts of a store, or of all stores, on a date
+ */
+public class DiscountPage {
+    private final String store;
+    private final String date;
+    private final int offset;
+    private final List<Discount> discounts;
+    private final int totalCount;
+
+    public DiscountPage(String store, String date, int offset, List<Discount> discounts, int totalCount) {
+        this.store = store;
+        this.date = date;
+        this.offset = offset;
+        this.discounts = Collections.unmodifiableList(discounts);
+        this.totalCount = totalCount;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * @return The rank of the first discount on the page, 0 being the best
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The discounts, highest percentage first
+     */
+    public List<Discount> getDiscounts() {
+        return discounts;
+    }
+
+    /**
+     * @return The number of active discounts across every page
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean hasNextPage() {
+        return offset + discounts.size() < totalCount;
+    }
+}
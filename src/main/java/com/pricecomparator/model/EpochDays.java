@@ -0,0 +1,33 @@
+package com.pricecomparator.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts the yyyy-MM-dd dates of the feeds to epoch days, so they can be compared as ints.
+ */
+public final class EpochDays {
+    /** Stands for a missing or unreadable date */
+    public static final int NONE = Integer.MIN_VALUE;
+    // Feeds span few distinct days, so every row posted on a day shares one string
+    private static final Map<Integer, String> FORMATTED = new ConcurrentHashMap<>();
+
+    private EpochDays() {
+    }
+
+    public static int parse(String date) {
+        if (date == null) return NONE;
+        try {
+            return (int) LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NONE;
+        }
+    }
+
+    public static String format(int epochDay) {
+        if (epochDay == NONE) return null;
+        return FORMATTED.computeIfAbsent(epochDay, day -> LocalDate.ofEpochDay(day).toString());
+    }
+}
@@ -0,0 +1,51 @@
+package com.pricecomparator.model;
+
+/**
+ * A change of a product's discounted price in one store on the repository's current day, caused
+ * either by ingesting a file the store uses on that day or by moving the current day
+ */
+public class PriceChange {
+    private final String store;
+    private final String productId;
+    private final String date;
+    private final double oldPrice;
+    private final double newPrice;
+
+    /**
+     * @param date     The repository's current day when the change was seen, on which the new price applies
+     * @param oldPrice The discounted price before the change, or NaN if the store did not sell the product
+     * @param newPrice The discounted price after the change, or NaN if the store no longer sells the product
+     */
+    public PriceChange(String store, String productId, String date, double oldPrice, double newPrice) {
+        this.store = store;
+        this.productId = productId;
+        this.date = date;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public double getOldPrice() {
+        return oldPrice;
+    }
+
+    public double getNewPrice() {
+        return newPrice;
+    }
+
+    @Override
+    public String toString() {
+        return store + " " + productId + " on " + date + ": " + oldPrice + " -> " + newPrice;
+    }
+}
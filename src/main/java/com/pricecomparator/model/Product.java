@@ -7,9 +7,10 @@ public class Product {
     private String brand;
     private double quantity;
     private String unit;
-    private double price;
+    private long priceBani; // Price in minor units, so comparisons and sums are exact
     private String currency;
     private String datePosted; // Date when this product price was recorded
+    private int datePostedEpochDay = EpochDays.NONE;
 
     public Product(String id, String name, String category, String brand, double quantity, String unit, double price, String currency) {
         this.id = id;
@@ -18,7 +19,7 @@ public class Product {
         this.brand = brand;
         this.quantity = quantity;
         this.unit = unit;
-        this.price = price;
+        this.priceBani = toBani(price);
         this.currency = currency;
         this.datePosted = null; // Will be set based on source file date
     }
@@ -30,9 +31,25 @@ public class Product {
         this.brand = brand;
         this.quantity = quantity;
         this.unit = unit;
-        this.price = price;
+        this.priceBani = toBani(price);
         this.currency = currency;
-        this.datePosted = datePosted;
+        setDatePosted(datePosted);
+    }
+
+    /**
+     * Creates a product from already converted values, without parsing anything
+     */
+    public Product(String id, String name, String category, String brand, double quantity, String unit, long priceBani, String currency, int datePostedEpochDay) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.brand = brand;
+        this.quantity = quantity;
+        this.unit = unit;
+        this.priceBani = priceBani;
+        this.currency = currency;
+        this.datePosted = EpochDays.format(datePostedEpochDay);
+        this.datePostedEpochDay = datePostedEpochDay;
     }
 
     public String getDatePosted() {
@@ -41,6 +58,14 @@ public class Product {
 
     public void setDatePosted(String datePosted) {
         this.datePosted = datePosted;
+        this.datePostedEpochDay = EpochDays.parse(datePosted);
+    }
+
+    /**
+     * @return The posted date as epoch days, or EpochDays.NONE if there is none
+     */
+    public int getDatePostedEpochDay() {
+        return datePostedEpochDay;
     }
 
     public String getId() {
@@ -92,11 +117,15 @@ public class Product {
     }
 
     public double getPrice() {
-        return price;
+        return priceBani / 100.0;
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceBani = toBani(price);
+    }
+
+    public long getPriceBani() {
+        return priceBani;
     }
 
     public String getCurrency() {
@@ -109,8 +138,11 @@ public class Product {
 
     @Override
     public String toString() {
-        return name + " (" + brand + ") - " + quantity + " " + unit + " at " + price + " " + currency +
+        return name + " (" + brand + ") - " + quantity + " " + unit + " at " + getPrice() + " " + currency +
                (datePosted != null ? " (posted on " + datePosted + ")" : "");
     }
 
+    private static long toBani(double price) {
+        return Math.round(price * 100);
+    }
 }
@@ -0,0 +1,63 @@
+package com.pricecomparator.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The cheapest way to buy a basket visiting at most a given number of stores,
+ * where every store visited adds a fixed cost on top of the products
+ */
+public class StoreLimitedBasket {
+    private final int maxStores;
+    private final List<String> stores;
+    private final BasketSplit split;
+    private final double visitCost;
+    private final boolean exact;
+
+    public StoreLimitedBasket(int maxStores, List<String> stores, BasketSplit split, double visitCost, boolean exact) {
+        this.maxStores = maxStores;
+        this.stores = Collections.unmodifiableList(stores);
+        this.split = split;
+        this.visitCost = visitCost;
+        this.exact = exact;
+    }
+
+    public int getMaxStores() {
+        return maxStores;
+    }
+
+    /**
+     * @return The stores to visit, which may be fewer than maxStores
+     */
+    public List<String> getStores() {
+        return stores;
+    }
+
+    public BasketSplit getSplit() {
+        return split;
+    }
+
+    /**
+     * @return The visit cost of all stores in the plan
+     */
+    public double getVisitCost() {
+        return visitCost;
+    }
+
+    public double getTotalCost() {
+        return split.getOptimizedTotal() + visitCost;
+    }
+
+    /**
+     * @return Whether the plan is proven optimal, rather than found by the heuristic
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    @Override
+    public String toString() {
+        return "At most " + maxStores + " store(s): " + String.join(", ", stores) + " - "
+                + String.format("%.2f", getTotalCost()) + " RON" + (exact ? "" : " (heuristic)");
+    }
+}
@@ -0,0 +1,42 @@
+package com.pricecomparator.model;
+
+/**
+ * A product the customer wants, how many of it and how much having it is worth to them
+ */
+public class WishListItem {
+    private final String productId;
+    private final int quantity;
+    private final int priority;
+
+    public WishListItem(String productId, int quantity, int priority) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1, got " + quantity);
+        }
+        if (priority < 0) {
+            throw new IllegalArgumentException("Priority cannot be negative, got " + priority);
+        }
+        this.productId = productId;
+        this.quantity = quantity;
+        this.priority = priority;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return The value of buying this item; higher is more important
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String toString() {
+        return productId + " x" + quantity + " (priority " + priority + ")";
+    }
+}
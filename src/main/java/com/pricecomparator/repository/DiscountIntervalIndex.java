@@ -0,0 +1,149 @@
+package com.pricecomparator.repository;
+
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+
+/**
+ * Answers "which discounts are active on this day" for one partition.
+ * <p>
+ * The validity intervals are kept in a centered interval tree built once with the partition.
+ * Each node holds the intervals containing its center day, sorted by start and by end, and the
+ * intervals wholly before or after the center go to its children. Every discount is stored in
+ * exactly one node, so the index takes O(n) space however much the intervals overlap, and a
+ * query walks one path of O(log n) nodes, reading only the intervals it returns.
+ */
+class DiscountIntervalIndex {
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final List<Discount> discounts;
+    private final int[] fromDays;
+    private final int[] toDays;
+    private final Node root;
+
+    /**
+     * @param fromDays First valid epoch day per discount
+     * @param toDays   Last valid epoch day per discount; an interval with toDays &lt; fromDays is never active
+     */
+    DiscountIntervalIndex(List<Discount> discounts, int[] fromDays, int[] toDays) {
+        this.discounts = discounts;
+        this.fromDays = fromDays;
+        this.toDays = toDays;
+
+        List<Integer> valid = new ArrayList<>(discounts.size());
+        for (int i = 0; i < discounts.size(); i++) {
+            if (fromDays[i] <= toDays[i]) valid.add(i);
+        }
+        this.root = build(valid);
+    }
+
+    /**
+     * Returns the discounts active on epochDay in file order, as an unmodifiable list
+     */
+    List<Discount> activeOn(long epochDay) {
+        int[] hits = NO_POSITIONS;
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int[] positions;
+            int matching;
+            if (epochDay < node.center) {
+                // Every interval here ends at or after the center, so only the start matters
+                positions = node.byStart;
+                matching = 0;
+                while (matching < positions.length && fromDays[positions[matching]] <= epochDay) matching++;
+                node = node.before;
+            } else if (epochDay > node.center) {
+                positions = node.byEnd;
+                matching = 0;
+                while (matching < positions.length && toDays[positions[matching]] >= epochDay) matching++;
+                node = node.after;
+            } else {
+                positions = node.byStart;
+                matching = positions.length;
+                node = null;
+            }
+            if (matching == 0) continue;
+            if (count + matching > hits.length) hits = Arrays.copyOf(hits, Math.max(hits.length * 2, count + matching));
+            System.arraycopy(positions, 0, hits, count, matching);
+            count += matching;
+        }
+        if (count == 0) return Collections.emptyList();
+
+        Arrays.sort(hits, 0, count);
+        Discount[] active = new Discount[count];
+        for (int k = 0; k < count; k++) {
+            active[k] = discounts.get(hits[k]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(active));
+    }
+
+    /**
+     * Number of stored discount positions, two per indexed discount
+     */
+    int storedPositions() {
+        int stored = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        if (root != null) pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            stored += node.byStart.length + node.byEnd.length;
+            if (node.before != null) pending.push(node.before);
+            if (node.after != null) pending.push(node.after);
+        }
+        return stored;
+    }
+
+    private Node build(List<Integer> positions) {
+        if (positions.isEmpty()) return null;
+
+        // The median endpoint leaves at most half of the intervals on either side
+        int[] endpoints = new int[positions.size() * 2];
+        for (int k = 0; k < positions.size(); k++) {
+            endpoints[2 * k] = fromDays[positions.get(k)];
+            endpoints[2 * k + 1] = toDays[positions.get(k)];
+        }
+        Arrays.sort(endpoints);
+        int center = endpoints[positions.size()];
+
+        List<Integer> before = new ArrayList<>();
+        List<Integer> after = new ArrayList<>();
+        List<Integer> containing = new ArrayList<>();
+        for (int i : positions) {
+            if (toDays[i] < center) before.add(i);
+            else if (fromDays[i] > center) after.add(i);
+            else containing.add(i);
+        }
+
+        containing.sort(Comparator.comparingInt(i -> fromDays[i]));
+        int[] byStart = toArray(containing);
+        containing.sort(Comparator.comparingInt((Integer i) -> toDays[i]).reversed());
+        int[] byEnd = toArray(containing);
+        return new Node(center, byStart, byEnd, build(before), build(after));
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        int[] array = new int[positions.size()];
+        for (int k = 0; k < array.length; k++) {
+            array[k] = positions.get(k);
+        }
+        return array;
+    }
+
+    private static class Node {
+        final int center;
+        // Positions of the intervals containing center, by ascending start and by descending end
+        final int[] byStart;
+        final int[] byEnd;
+        final Node before;
+        final Node after;
+
+        Node(int center, int[] byStart, int[] byEnd, Node before, Node after) {
+            this.center = center;
+            this.byStart = byStart;
+            this.byEnd = byEnd;
+            this.before = before;
+            this.after = after;
+        }
+    }
+}
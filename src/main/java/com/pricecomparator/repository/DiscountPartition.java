@@ -0,0 +1,116 @@
+package com.pricecomparator.repository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.EpochDays;
+
+/**
+ * Discounts of one store/date file, with a hash index from product ID to its discounts,
+ * an index of the discounts active on each day and an index of them by start day.
+ */
+public class DiscountPartition implements Partition {
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final List<Discount> discounts;
+    // Validity per discount as epoch days, in file order
+    private final int[] fromDays;
+    private final int[] toDays;
+    private final Map<String, int[]> positionsByProductId;
+    private final DiscountIntervalIndex activeIndex;
+    // Discounts with readable dates sorted by start day, file order on ties, and their start days
+    private final List<Discount> byStartDay;
+    private final int[] startDays;
+
+    public DiscountPartition(List<Discount> discounts) {
+        this.discounts = discounts;
+        this.fromDays = new int[discounts.size()];
+        this.toDays = new int[discounts.size()];
+        this.positionsByProductId = new HashMap<>(discounts.size() * 2);
+
+        for (int i = 0; i < discounts.size(); i++) {
+            Discount discount = discounts.get(i);
+            if (discount.getFromEpochDay() != EpochDays.NONE && discount.getToEpochDay() != EpochDays.NONE) {
+                fromDays[i] = discount.getFromEpochDay();
+                toDays[i] = discount.getToEpochDay();
+            } else {
+                // A discount without readable dates is never active
+                fromDays[i] = Integer.MAX_VALUE;
+                toDays[i] = Integer.MIN_VALUE;
+            }
+
+            int[] positions = positionsByProductId.getOrDefault(discount.getProductId(), NO_POSITIONS);
+            positions = Arrays.copyOf(positions, positions.length + 1);
+            positions[positions.length - 1] = i;
+            positionsByProductId.put(discount.getProductId(), positions);
+        }
+        this.activeIndex = new DiscountIntervalIndex(discounts, fromDays, toDays);
+
+        List<Integer> starting = new ArrayList<>();
+        for (int i = 0; i < discounts.size(); i++) {
+            if (fromDays[i] <= toDays[i]) starting.add(i);
+        }
+        starting.sort(Comparator.comparingInt(i -> fromDays[i]));
+        Discount[] sorted = new Discount[starting.size()];
+        this.startDays = new int[starting.size()];
+        for (int k = 0; k < sorted.length; k++) {
+            sorted[k] = discounts.get(starting.get(k));
+            startDays[k] = fromDays[starting.get(k)];
+        }
+        this.byStartDay = Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    public List<Discount> getDiscounts() {
+        return discounts;
+    }
+
+    /**
+     * Returns the discounts active on a date in file order, as an unmodifiable list
+     */
+    public List<Discount> findActive(LocalDate date) {
+        return activeIndex.activeOn(date.toEpochDay());
+    }
+
+    /**
+     * Returns the first discount for a product, in file order, that is active on a date
+     */
+    public Discount findActiveForProduct(String productId, LocalDate date) {
+        long day = date.toEpochDay();
+        for (int i : positionsByProductId.getOrDefault(productId, NO_POSITIONS)) {
+            if (fromDays[i] <= day && day <= toDays[i]) {
+                return discounts.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the discounts starting between two dates, inclusive, ordered by start date and then
+     * file order, as an unmodifiable view of the start day index
+     */
+    public List<Discount> findStartingBetween(LocalDate from, LocalDate to) {
+        int first = firstStartingOnOrAfter(from.toEpochDay());
+        int end = firstStartingOnOrAfter(to.toEpochDay() + 1);
+        return first < end ? byStartDay.subList(first, end) : Collections.emptyList();
+    }
+
+    private int firstStartingOnOrAfter(long day) {
+        int low = 0;
+        int high = startDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int size() {
+        return discounts.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.pricecomparator.repository;
+
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+
+/**
+ * The discounts active on one date, ranked by percentage, highest first, for every store and
+ * for all stores together.
+ * <p>
+ * Each store's list is sorted once when the ranking is built, and the all-stores ranking is a
+ * heap merge of those. Equal percentages keep file order within a store and store name order
+ * across stores. Pages are read-only views of the ranked arrays, so a page of K discounts costs
+ * O(K) and the lists the repository shares are never reordered. Instances are immutable.
+ */
+public class DiscountRanking {
+    private static final Comparator<Discount> BY_PERCENT_DESCENDING =
+            (d1, d2) -> Integer.compare(d2.getDiscountPercent(), d1.getDiscountPercent());
+
+    private final Map<String, Discount[]> rankedByStore;
+    private final Discount[] rankedAll;
+
+    private DiscountRanking(Map<String, Discount[]> rankedByStore, Discount[] rankedAll) {
+        this.rankedByStore = rankedByStore;
+        this.rankedAll = rankedAll;
+    }
+
+    /**
+     * Ranks the discounts each store has active on a date; the lists are copied, not modified
+     */
+    public static DiscountRanking build(Map<String, List<Discount>> activeDiscounts) {
+        Map<String, Discount[]> rankedByStore = new TreeMap<>();
+        int total = 0;
+        for (Map.Entry<String, List<Discount>> entry : activeDiscounts.entrySet()) {
+            Discount[] ranked = entry.getValue().toArray(new Discount[0]);
+            // Stable, so equal percentages stay in file order
+            Arrays.sort(ranked, BY_PERCENT_DESCENDING);
+            rankedByStore.put(entry.getKey(), ranked);
+            total += ranked.length;
+        }
+
+        // Heap of {store index, position}, ordered by the discount at that position
+        List<Discount[]> stores = new ArrayList<>(rankedByStore.values());
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(stores.size(), 1), (a, b) -> {
+            int byPercent = BY_PERCENT_DESCENDING.compare(stores.get(a[0])[a[1]], stores.get(b[0])[b[1]]);
+            return byPercent != 0 ? byPercent : Integer.compare(a[0], b[0]);
+        });
+        for (int s = 0; s < stores.size(); s++) {
+            if (stores.get(s).length > 0) heads.add(new int[] {s, 0});
+        }
+        Discount[] rankedAll = new Discount[total];
+        for (int i = 0; i < total; i++) {
+            int[] head = heads.poll();
+            rankedAll[i] = stores.get(head[0])[head[1]];
+            if (++head[1] < stores.get(head[0]).length) heads.add(head);
+        }
+
+        return new DiscountRanking(rankedByStore, rankedAll);
+    }
+
+    /**
+     * @return Up to limit discounts of the store starting at rank offset (0 is the best), or an
+     *         empty list for a store with no active discounts
+     */
+    public List<Discount> getTop(String store, int offset, int limit) {
+        return page(rankedByStore.getOrDefault(store, new Discount[0]), offset, limit);
+    }
+
+    /**
+     * @return Up to limit discounts across all stores starting at rank offset (0 is the best)
+     */
+    public List<Discount> getTopOfAllStores(int offset, int limit) {
+        return page(rankedAll, offset, limit);
+    }
+
+    public int getCount(String store) {
+        Discount[] ranked = rankedByStore.get(store);
+        return ranked != null ? ranked.length : 0;
+    }
+
+    public int getCountOfAllStores() {
+        return rankedAll.length;
+    }
+
+    /**
+     * @return The stores with at least one active discount, in name order
+     */
+    public Set<String> getStores() {
+        Set<String> stores = new TreeSet<>();
+        rankedByStore.forEach((store, ranked) -> {
+            if (ranked.length > 0) stores.add(store);
+        });
+        return stores;
+    }
+
+    private static List<Discount> page(Discount[] ranked, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative, got " + offset + " and " + limit);
+        }
+        int from = Math.min(offset, ranked.length);
+        int to = (int) Math.min((long) from + limit, ranked.length);
+        return Collections.unmodifiableList(Arrays.asList(ranked).subList(from, to));
+    }
+}
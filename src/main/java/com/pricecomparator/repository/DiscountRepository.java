@@ -4,55 +4,62 @@ import com.pricecomparator.model.Discount;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class DiscountRepository {
-    private final Map<String, Map<LocalDate, List<Discount>>> storeDiscountsByDate;
-    private Map<String, List<Discount>> cachedDiscounts;
-    private LocalDate cachedDate;
+    private final PartitionStore<DiscountPartition> partitions;
+    // Keyed by the partition date each store resolves to, so target dates sharing partitions share an entry
+    private final LruCache<Map<String, LocalDate>, Map<String, List<Discount>>> cache = new LruCache<>();
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public DiscountRepository(Map<String, Map<LocalDate, List<Discount>>> storeDiscountsByDate) {
-        this.storeDiscountsByDate = storeDiscountsByDate;
-        this.cachedDiscounts = new HashMap<>();
+        this(PartitionStore.of(storeDiscountsByDate, DiscountPartition::new));
+    }
+
+    /**
+     * Creates a repository over partitions that may be loaded lazily
+     */
+    public DiscountRepository(PartitionStore<DiscountPartition> partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Adds or replaces the discounts of one store/date file and drops cached results built from it
+     */
+    public void putDiscounts(String store, LocalDate date, List<Discount> discounts, Supplier<List<Discount>> reloader) {
+        partitions.put(store, date, new DiscountPartition(discounts), reloader != null ? () -> new DiscountPartition(reloader.get()) : null);
+
+        // Only results built from the replaced partition can be stale; new dates resolve to new keys
+        cache.invalidate(resolved -> date.equals(resolved.get(store)));
     }
 
     /**
      * Gets all discounts for all stores for the most recent date before or on targetDate
+     *
+     * @return An unmodifiable map, shared with other callers through the cache
      */
     public Map<String, List<Discount>> getDiscountsForDate(String dateStr) {
         LocalDate targetDate = LocalDate.parse(dateStr);
-        
-        // Return cached result if already computed for this date
-        if (targetDate.equals(cachedDate) && !cachedDiscounts.isEmpty()) {
-            return cachedDiscounts;
+        long generation = cache.generation();
+        Map<String, LocalDate> resolved = partitions.latestDatesOnOrBefore(targetDate);
+
+        Map<String, List<Discount>> cached = cache.get(resolved);
+        if (cached != null) {
+            return cached;
         }
-        
+
         Map<String, List<Discount>> result = new HashMap<>();
-        
-        // For each store, find the most recent date before or on the target date
-        for (String store : storeDiscountsByDate.keySet()) {
-            Map<LocalDate, List<Discount>> dateMap = storeDiscountsByDate.get(store);
-            
-            if (dateMap == null || dateMap.isEmpty()) {
-                continue;
-            }
-            
-            // Find the most recent date that's not after targetDate
-            Optional<LocalDate> mostRecentDate = dateMap.keySet().stream()
-                .filter(date -> !date.isAfter(targetDate))
-                .max(LocalDate::compareTo);
-                
-            if (mostRecentDate.isPresent()) {
-                result.put(store, dateMap.get(mostRecentDate.get()));
+        resolved.forEach((store, mostRecentDate) -> {
+            // Only this partition is loaded if it is not resident yet
+            DiscountPartition partition = partitions.get(store, mostRecentDate);
+            if (partition != null) {
+                result.put(store, Collections.unmodifiableList(partition.getDiscounts()));
             }
-        }
-        
-        // Cache the result
-        cachedDiscounts = result;
-        cachedDate = targetDate;
-        
-        return result;
+        });
+
+        Map<String, List<Discount>> view = Collections.unmodifiableMap(result);
+        cache.put(resolved, view, generation);
+        return view;
     }
     
     /**
@@ -63,17 +70,14 @@ public class DiscountRepository {
         Map<String, List<Discount>> result = new HashMap<>();
         
         // For each store, collect all discounts from dates before or on targetDate
-        for (String store : storeDiscountsByDate.keySet()) {
-            Map<LocalDate, List<Discount>> dateMap = storeDiscountsByDate.get(store);
-            
-            if (dateMap == null || dateMap.isEmpty()) {
-                continue;
+        for (String store : partitions.stores()) {
+            List<Discount> allDiscounts = new ArrayList<>();
+            for (LocalDate date : partitions.datesOnOrBefore(store, targetDate)) {
+                DiscountPartition partition = partitions.get(store, date);
+                if (partition != null) {
+                    allDiscounts.addAll(partition.getDiscounts());
+                }
             }
-            
-            List<Discount> allDiscounts = dateMap.entrySet().stream()
-                .filter(entry -> !entry.getKey().isAfter(targetDate))
-                .flatMap(entry -> entry.getValue().stream())
-                .collect(Collectors.toList());
                 
             if (!allDiscounts.isEmpty()) {
                 result.put(store, allDiscounts);
@@ -88,31 +92,70 @@ public class DiscountRepository {
         return discountsForDate.getOrDefault(store, List.of());
     }
 
+    /**
+     * Gets the discounts of a store that are valid on the date, from its pre-built interval index
+     *
+     * @return An unmodifiable list, shared with other callers
+     */
     public List<Discount> getActiveDiscounts(String store, String dateStr) {
         LocalDate targetDate = LocalDate.parse(dateStr, DATE_FORMATTER);
-        List<Discount> storeDiscounts = getDiscountsByStore(store, dateStr);
-        
-        return storeDiscounts.stream()
-            .filter(d -> isDiscountValid(d, targetDate))
-            .collect(Collectors.toList());
+        DiscountPartition partition = partitionFor(store, targetDate);
+        return partition != null ? partition.findActive(targetDate) : List.of();
     }
 
-    public Discount findDiscountForProduct(String store, String productId, String dateStr) {
+    /**
+     * Gets the discounts of a store that started between sinceDate and the date, inclusive, and
+     * are still valid on the date, from the start day index of the partition it uses on the date
+     *
+     * @return An unmodifiable list, ordered by start date
+     */
+    public List<Discount> getNewDiscounts(String store, String sinceDateStr, String dateStr) {
+        LocalDate sinceDate = LocalDate.parse(sinceDateStr, DATE_FORMATTER);
         LocalDate targetDate = LocalDate.parse(dateStr, DATE_FORMATTER);
-        return getDiscountsByStore(store, dateStr).stream()
-            .filter(d -> d.getProductId().equals(productId))
-            .filter(d -> isDiscountValid(d, targetDate))
-            .findFirst()
-            .orElse(null);
+        DiscountPartition partition = partitionFor(store, targetDate);
+        if (partition == null || sinceDate.isAfter(targetDate)) return List.of();
+
+        List<Discount> started = partition.findStartingBetween(sinceDate, targetDate);
+        long day = targetDate.toEpochDay();
+        int stillValid = 0;
+        for (Discount discount : started) {
+            if (discount.getToEpochDay() >= day) stillValid++;
+        }
+        if (stillValid == started.size()) return started;
+
+        List<Discount> valid = new ArrayList<>(stillValid);
+        for (Discount discount : started) {
+            if (discount.getToEpochDay() >= day) valid.add(discount);
+        }
+        return Collections.unmodifiableList(valid);
     }
 
-    private boolean isDiscountValid(Discount discount, LocalDate targetDate) {
-        LocalDate fromDate = LocalDate.parse(discount.getFromDate(), DATE_FORMATTER);
-        LocalDate toDate = LocalDate.parse(discount.getToDate(), DATE_FORMATTER);
-        return !targetDate.isBefore(fromDate) && !targetDate.isAfter(toDate);
+    public Discount findDiscountForProduct(String store, String productId, String dateStr) {
+        LocalDate targetDate = LocalDate.parse(dateStr, DATE_FORMATTER);
+        DiscountPartition partition = partitionFor(store, targetDate);
+        return partition != null ? partition.findActiveForProduct(productId, targetDate) : null;
     }
 
     public Map<String, Map<LocalDate, List<Discount>>> getAllDiscountData() {
-        return storeDiscountsByDate;
+        Map<String, Map<LocalDate, List<Discount>>> result = new HashMap<>();
+        partitions.toMap().forEach((store, dateMap) -> dateMap.forEach((date, partition) ->
+            result.computeIfAbsent(store, k -> new HashMap<>()).put(date, partition.getDiscounts())));
+        return result;
+    }
+
+    public LruCache<Map<String, LocalDate>, Map<String, List<Discount>>> getCache() {
+        return cache;
+    }
+
+    public PartitionStore<DiscountPartition> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Resolves the partition a store uses on targetDate: the most recent one not after it
+     */
+    private DiscountPartition partitionFor(String store, LocalDate targetDate) {
+        LocalDate mostRecentDate = partitions.latestDateOnOrBefore(store, targetDate);
+        return mostRecentDate != null ? partitions.get(store, mostRecentDate) : null;
     }
 } 
\ No newline at end of file
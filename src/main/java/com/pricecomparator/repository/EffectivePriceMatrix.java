@@ -0,0 +1,132 @@
+package com.pricecomparator.repository;
+
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+
+/**
+ * Product x store table of the prices on one date, with the active discount already applied.
+ * <p>
+ * Cells are stored in flat arrays indexed by row * storeCount + store, and the cheapest store
+ * of every product is picked when the table is built, so resolving a basket line is a hash
+ * lookup for the row followed by array reads. Instances are immutable.
+ */
+public class EffectivePriceMatrix {
+    public static final int NOT_FOUND = -1;
+
+    private final String[] stores;
+    private final Map<String, Integer> rowByProductId;
+    private final Product[] products;
+    private final double[] effectivePrices;
+    private final int[] discountPercents;
+    private final int[] bestStores;
+
+    private EffectivePriceMatrix(String[] stores, Map<String, Integer> rowByProductId, Product[] products,
+                                 double[] effectivePrices, int[] discountPercents, int[] bestStores) {
+        this.stores = stores;
+        this.rowByProductId = rowByProductId;
+        this.products = products;
+        this.effectivePrices = effectivePrices;
+        this.discountPercents = discountPercents;
+        this.bestStores = bestStores;
+    }
+
+    /**
+     * Builds the table from the products each store sells on a date and the discounts active on it.
+     * For a product listed twice, or with several active discounts, the first in file order is used.
+     * Ties between stores go to the store that comes first in storeProducts.
+     */
+    public static EffectivePriceMatrix build(Map<String, List<Product>> storeProducts,
+                                             Map<String, List<Discount>> activeDiscounts) {
+        String[] stores = storeProducts.keySet().toArray(new String[0]);
+        Map<String, Integer> rowByProductId = new HashMap<>();
+        for (String store : stores) {
+            for (Product product : storeProducts.get(store)) {
+                rowByProductId.putIfAbsent(product.getId(), rowByProductId.size());
+            }
+        }
+
+        int cells = rowByProductId.size() * stores.length;
+        Product[] products = new Product[cells];
+        double[] effectivePrices = new double[cells];
+        int[] discountPercents = new int[cells];
+        for (int s = 0; s < stores.length; s++) {
+            Map<String, Integer> percentByProductId = new HashMap<>();
+            for (Discount discount : activeDiscounts.getOrDefault(stores[s], Collections.emptyList())) {
+                percentByProductId.putIfAbsent(discount.getProductId(), discount.getDiscountPercent());
+            }
+
+            for (Product product : storeProducts.get(stores[s])) {
+                int cell = rowByProductId.get(product.getId()) * stores.length + s;
+                if (products[cell] != null) continue;
+
+                int percent = percentByProductId.getOrDefault(product.getId(), 0);
+                products[cell] = product;
+                discountPercents[cell] = percent;
+                effectivePrices[cell] = product.getPrice() * (1 - percent / 100.0);
+            }
+        }
+
+        int[] bestStores = new int[rowByProductId.size()];
+        for (int row = 0; row < bestStores.length; row++) {
+            int best = NOT_FOUND;
+            for (int s = 0; s < stores.length; s++) {
+                int cell = row * stores.length + s;
+                if (products[cell] != null && (best == NOT_FOUND || effectivePrices[cell] < effectivePrices[row * stores.length + best])) {
+                    best = s;
+                }
+            }
+            bestStores[row] = best;
+        }
+
+        return new EffectivePriceMatrix(stores, rowByProductId, products, effectivePrices, discountPercents, bestStores);
+    }
+
+    /**
+     * @return The row of the product, or NOT_FOUND if no store sells it on this date
+     */
+    public int rowOf(String productId) {
+        Integer row = rowByProductId.get(productId);
+        return row != null ? row : NOT_FOUND;
+    }
+
+    public int getStoreCount() {
+        return stores.length;
+    }
+
+    public String getStore(int store) {
+        return stores[store];
+    }
+
+    /**
+     * @return The store index with the lowest discounted price for the row
+     */
+    public int getBestStore(int row) {
+        return bestStores[row];
+    }
+
+    /**
+     * @return The product sold by the store, or null if the store does not sell it
+     */
+    public Product getProduct(int row, int store) {
+        return products[row * stores.length + store];
+    }
+
+    public double getEffectivePrice(int row, int store) {
+        return effectivePrices[row * stores.length + store];
+    }
+
+    public int getDiscountPercent(int row, int store) {
+        return discountPercents[row * stores.length + store];
+    }
+
+    /**
+     * @return The discounted cost of quantity units in bani, from the integer price and percentage,
+     *         rounded half up once on the line total
+     */
+    public long getEffectiveTotalBani(int row, int store, int quantity) {
+        int cell = row * stores.length + store;
+        return (products[cell].getPriceBani() * quantity * (100 - discountPercents[cell]) + 50) / 100;
+    }
+}
@@ -0,0 +1,105 @@
+package com.pricecomparator.repository;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A small thread-safe cache that keeps at most maxEntries values, least recently used out first.
+ * <p>
+ * Readers take the generation before computing a value and pass it back when storing it,
+ * so a value computed from data that was invalidated meanwhile is never cached.
+ */
+public class LruCache<K, V> {
+    public static final int DEFAULT_MAX_ENTRIES = 16;
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public LruCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1, got " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The cached value, or null on a miss
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a value unless the cache was invalidated since the given generation
+     */
+    public synchronized void put(K key, V value, long expectedGeneration) {
+        if (expectedGeneration != generation) return;
+
+        entries.put(key, value);
+        Iterator<K> lru = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            lru.next();
+            lru.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops the entries whose key matches and starts a new generation
+     */
+    public synchronized void invalidate(Predicate<K> stale) {
+        generation++;
+        entries.keySet().removeIf(stale);
+    }
+
+    public synchronized void clear() {
+        invalidate(key -> true);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return The share of lookups that were hits, or 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                entries.size(), maxEntries, hits, misses, getHitRate() * 100, evictions);
+    }
+}
@@ -2,15 +2,42 @@ package com.pricecomparator.repository;
 
 import com.pricecomparator.model.Product;
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.PriceChange;
+import com.pricecomparator.loader.FeedParser;
+import com.pricecomparator.loader.MarketDataFile;
 import com.pricecomparator.loader.MarketDataLoader;
+import com.pricecomparator.loader.MarketDataLoadResult;
+import com.pricecomparator.loader.MarketDataSnapshot;
+import com.pricecomparator.loader.StringDictionary;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.LocalDate;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class MarketDataRepository {
     private final ProductRepository productRepository;
     private final DiscountRepository discountRepository;
+    // Effective price tables by requested date, dropped whenever a file is ingested
+    private final LruCache<String, EffectivePriceMatrix> priceMatrices = new LruCache<>();
+    // Discount rankings by requested date, dropped whenever a file is ingested
+    private final LruCache<String, DiscountRanking> discountRankings = new LruCache<>();
+    // Bumped after every ingested file, once the price tables built from older data are dropped
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final List<PriceChangeListener> priceChangeListeners = new CopyOnWriteArrayList<>();
+    private final PriceChangeDetector priceChangeDetector = new PriceChangeDetector();
+    // Held while partitions are replaced or the day moves, so each change is computed against a stable floor
+    private final Object priceChangeLock = new Object();
+    // The day price changes are reported for; files dated later only count once it reaches them
+    private LocalDate today = LocalDate.now();
 
     public MarketDataRepository(ProductRepository productRepository, DiscountRepository discountRepository) {
         this.productRepository = productRepository;
@@ -30,6 +57,324 @@ public class MarketDataRepository {
         );
     }
 
+    /**
+     * Creates a MarketDataRepository by loading product and discount files in parallel
+     *
+     * @param parallelism Maximum number of files parsed at the same time
+     */
+    public static MarketDataRepository createFromFiles(int parallelism) {
+        return createFromLoadResult(MarketDataLoader.loadAllFilesInParallel(parallelism));
+    }
+
+    /**
+     * Creates a MarketDataRepository by loading files in parallel with the given parser backend
+     *
+     * @param parallelism Maximum number of files parsed at the same time
+     * @param parser OpenCSV or memory-mapped feed parser
+     */
+    public static MarketDataRepository createFromFiles(int parallelism, FeedParser parser) {
+        return createFromLoadResult(MarketDataLoader.loadAllFilesInParallel(parallelism, parser));
+    }
+
+    /**
+     * Creates a MarketDataRepository whose products keep only the price changes between a store's snapshots
+     *
+     * @param parallelism Maximum number of files parsed at the same time
+     * @param parser OpenCSV or memory-mapped feed parser
+     */
+    public static MarketDataRepository createWithDeltaIngestion(int parallelism, FeedParser parser) {
+        MarketDataLoadResult loadResult = MarketDataLoader.loadAllFilesInParallel(parallelism, parser);
+        return new MarketDataRepository(
+            ProductRepository.createWithDeltaIngestion(loadResult.getProductData()),
+            new DiscountRepository(loadResult.getDiscountData())
+        );
+    }
+
+    /**
+     * Creates a MarketDataRepository from the binary snapshot when it is still fresh.
+     * Otherwise the CSV files are loaded in parallel and a new snapshot is written for the next start.
+     * Either way a load report is printed: the snapshot timing, or the per-file timings.
+     *
+     * @param snapshotPath Location of the snapshot file
+     * @param parallelism Maximum number of files parsed at the same time when rebuilding
+     * @param parser Backend used to parse the CSV files when rebuilding
+     */
+    public static MarketDataRepository createFromSnapshotOrFiles(Path snapshotPath, int parallelism, FeedParser parser) {
+        List<MarketDataFile> sourceFiles = MarketDataLoader.listDataFiles();
+        long start = System.nanoTime();
+        MarketDataSnapshot snapshot = MarketDataSnapshot.readIfFresh(snapshotPath, sourceFiles);
+        if (snapshot != null) {
+            System.out.println(snapshot.formatLoadReport(snapshotPath, (System.nanoTime() - start) / 1_000_000));
+            System.out.println(StringDictionary.shared().formatSavings());
+            return new MarketDataRepository(
+                new ProductRepository(snapshot.getProductData()),
+                new DiscountRepository(snapshot.getDiscountData())
+            );
+        }
+
+        MarketDataLoadResult loadResult = MarketDataLoader.loadAllFilesInParallel(parallelism, parser);
+        loadResult.formatTimingReport().forEach(System.out::println);
+        try {
+            MarketDataSnapshot.write(snapshotPath, loadResult.getProductData(), loadResult.getDiscountData(), sourceFiles);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: Could not write snapshot " + snapshotPath + ": " + e.getMessage());
+        }
+        return createFromLoadResult(loadResult);
+    }
+
+    /**
+     * Creates a MarketDataRepository that only indexes the store/date files by name.
+     * Each partition is parsed the first time a query needs it, and with a budget the
+     * least recently used partitions are dropped again once too many rows are resident.
+     *
+     * @param maxResidentRows Rows kept in memory per repository, or 0 for no limit
+     * @param parser Backend used to parse a partition when it is first needed
+     */
+    public static MarketDataRepository createLazy(long maxResidentRows, FeedParser parser) {
+        PartitionStore<ProductPartition> productPartitions = new PartitionStore<>(maxResidentRows);
+        PartitionStore<DiscountPartition> discountPartitions = new PartitionStore<>(maxResidentRows);
+
+        for (MarketDataFile file : MarketDataLoader.listDataFiles()) {
+            if (file.isDiscountFile()) {
+                discountPartitions.register(file.getStoreName(), file.getDate(),
+                    () -> new DiscountPartition(MarketDataLoader.loadDiscountFile(file, parser)));
+            } else {
+                productPartitions.register(file.getStoreName(), file.getDate(),
+                    () -> new ProductPartition(MarketDataLoader.loadProductFile(file, parser)));
+            }
+        }
+
+        return new MarketDataRepository(
+            new ProductRepository(productPartitions),
+            new DiscountRepository(discountPartitions)
+        );
+    }
+
+    /**
+     * Creates a MarketDataRepository from an already completed load
+     */
+    public static MarketDataRepository createFromLoadResult(MarketDataLoadResult loadResult) {
+        return new MarketDataRepository(
+            new ProductRepository(loadResult.getProductData()),
+            new DiscountRepository(loadResult.getDiscountData())
+        );
+    }
+
+    /**
+     * Loads one newly arrived or modified store/date file and merges it into the repositories.
+     * Only the affected partition is replaced; cached results that could include it are dropped.
+     * If the file is now the one its store uses today, price change listeners are told which
+     * discounted prices it changed; backfilled and future files change nothing today.
+     *
+     * @return The number of rows loaded from the file
+     */
+    public int ingestFile(MarketDataFile file, FeedParser parser) {
+        String store = file.getStoreName();
+        LocalDate date = file.getDate();
+        List<PriceChange> changes;
+        int rows;
+
+        if (file.isDiscountFile()) {
+            List<Discount> discounts = MarketDataLoader.loadDiscountFile(file, parser);
+            synchronized (priceChangeLock) {
+                // The diff is only worked out when someone listens for it
+                boolean detectChanges = !priceChangeListeners.isEmpty() && !date.isAfter(today);
+                DiscountPartition previous = detectChanges ? partitionOnOrBefore(discountRepository.getPartitions(), store, today) : null;
+                discountRepository.putDiscounts(store, date, discounts,
+                    () -> MarketDataLoader.loadDiscountFile(file, parser));
+                priceMatrices.clear();
+                discountRankings.clear();
+                dataVersion.incrementAndGet();
+                changes = detectChanges ? discountFileChanges(store, date, previous) : Collections.emptyList();
+            }
+            rows = discounts.size();
+        } else {
+            List<Product> products = MarketDataLoader.loadProductFile(file, parser);
+            synchronized (priceChangeLock) {
+                boolean detectChanges = !priceChangeListeners.isEmpty() && !date.isAfter(today);
+                ProductPartition previous = detectChanges ? partitionOnOrBefore(productRepository.getPartitions(), store, today) : null;
+                productRepository.putProducts(store, date, products,
+                    () -> MarketDataLoader.loadProductFile(file, parser));
+                priceMatrices.clear();
+                dataVersion.incrementAndGet();
+                changes = detectChanges ? productFileChanges(store, date, previous) : Collections.emptyList();
+            }
+            rows = products.size();
+        }
+
+        notifyPriceChanges(changes);
+        return rows;
+    }
+
+    /**
+     * Moves the day price changes are reported for. Listeners are told about the prices that
+     * differ between the two days: discounts starting or ending in between, and product or
+     * discount files dated in between that were ingested ahead of time.
+     */
+    public void setToday(LocalDate newToday) {
+        List<PriceChange> changes = new ArrayList<>();
+        synchronized (priceChangeLock) {
+            LocalDate oldToday = today;
+            today = newToday;
+            if (priceChangeListeners.isEmpty() || newToday.equals(oldToday)) return;
+
+            PartitionStore<ProductPartition> products = productRepository.getPartitions();
+            PartitionStore<DiscountPartition> discounts = discountRepository.getPartitions();
+            Set<String> stores = new TreeSet<>(products.stores());
+            stores.addAll(discounts.stores());
+            for (String store : stores) {
+                changes.addAll(priceChangeDetector.storeChanges(store,
+                    oldToday, partitionOnOrBefore(products, store, oldToday), partitionOnOrBefore(discounts, store, oldToday),
+                    newToday, partitionOnOrBefore(products, store, newToday), partitionOnOrBefore(discounts, store, newToday)));
+            }
+        }
+        // Listeners get one store's changes at a time
+        int from = 0;
+        for (int i = 1; i <= changes.size(); i++) {
+            if (i == changes.size() || !changes.get(i).getStore().equals(changes.get(from).getStore())) {
+                notifyPriceChanges(new ArrayList<>(changes.subList(from, i)));
+                from = i;
+            }
+        }
+    }
+
+    public LocalDate getToday() {
+        synchronized (priceChangeLock) {
+            return today;
+        }
+    }
+
+    /**
+     * Registers a listener told about the discounted prices each ingested file, or a move of
+     * today, changes
+     */
+    public void addPriceChangeListener(PriceChangeListener listener) {
+        priceChangeListeners.add(listener);
+    }
+
+    public void removePriceChangeListener(PriceChangeListener listener) {
+        priceChangeListeners.remove(listener);
+    }
+
+    private List<PriceChange> productFileChanges(String store, LocalDate date, ProductPartition previous) {
+        PartitionStore<ProductPartition> partitions = productRepository.getPartitions();
+        if (!date.equals(partitions.latestDateOnOrBefore(store, today))) return Collections.emptyList();
+        DiscountPartition discounts = partitionOnOrBefore(discountRepository.getPartitions(), store, today);
+        return priceChangeDetector.storeChanges(store, today, previous, discounts,
+            today, partitions.get(store, date), discounts);
+    }
+
+    private List<PriceChange> discountFileChanges(String store, LocalDate date, DiscountPartition previous) {
+        PartitionStore<DiscountPartition> partitions = discountRepository.getPartitions();
+        if (!date.equals(partitions.latestDateOnOrBefore(store, today))) return Collections.emptyList();
+        ProductPartition products = partitionOnOrBefore(productRepository.getPartitions(), store, today);
+        return priceChangeDetector.storeChanges(store, today, products, previous,
+            today, products, partitions.get(store, date));
+    }
+
+    private static <P extends Partition> P partitionOnOrBefore(PartitionStore<P> partitions, String store, LocalDate date) {
+        LocalDate partitionDate = partitions.latestDateOnOrBefore(store, date);
+        return partitionDate != null ? partitions.get(store, partitionDate) : null;
+    }
+
+    private void notifyPriceChanges(List<PriceChange> changes) {
+        if (changes.isEmpty()) return;
+        List<PriceChange> unmodifiable = Collections.unmodifiableList(changes);
+        for (PriceChangeListener listener : priceChangeListeners) {
+            try {
+                listener.pricesChanged(unmodifiable);
+            } catch (RuntimeException e) {
+                // The file is already ingested; one failing listener must not hide it from the others
+                System.out.println("Warning: Price change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the product x store table of discounted prices for a date, building it on first use
+     */
+    public EffectivePriceMatrix getEffectivePriceMatrix(String date) {
+        long generation = priceMatrices.generation();
+        EffectivePriceMatrix matrix = priceMatrices.get(date);
+        if (matrix != null) {
+            return matrix;
+        }
+
+        Map<String, List<Product>> storeProducts = getProductsForDate(date);
+        Map<String, List<Discount>> activeDiscounts = new HashMap<>();
+        for (String store : storeProducts.keySet()) {
+            activeDiscounts.put(store, discountRepository.getActiveDiscounts(store, date));
+        }
+        matrix = EffectivePriceMatrix.build(storeProducts, activeDiscounts);
+        priceMatrices.put(date, matrix, generation);
+        return matrix;
+    }
+
+    /**
+     * Gets the discounts active on a date ranked by percentage, ranking them on first use
+     */
+    public DiscountRanking getDiscountRanking(String date) {
+        long generation = discountRankings.generation();
+        DiscountRanking ranking = discountRankings.get(date);
+        if (ranking != null) {
+            return ranking;
+        }
+
+        Map<String, List<Discount>> activeDiscounts = new HashMap<>();
+        for (String store : getDiscountsForDate(date).keySet()) {
+            activeDiscounts.put(store, discountRepository.getActiveDiscounts(store, date));
+        }
+        ranking = DiscountRanking.build(activeDiscounts);
+        discountRankings.put(date, ranking, generation);
+        return ranking;
+    }
+
+    public LruCache<String, DiscountRanking> getDiscountRankingCache() {
+        return discountRankings;
+    }
+
+    /**
+     * Version of the loaded data, which changes whenever a file is ingested. Read it before the
+     * data it describes: anything read afterwards is at least this new.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    public LruCache<String, EffectivePriceMatrix> getPriceMatrixCache() {
+        return priceMatrices;
+    }
+
+    /**
+     * Lists the days after fromDate, up to toDate, on which some store switches to a newer product
+     * or discount file, oldest first. Nothing is loaded.
+     */
+    public List<String> getSnapshotDatesBetween(String fromDate, String toDate) {
+        LocalDate from = LocalDate.parse(fromDate);
+        LocalDate to = LocalDate.parse(toDate);
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (PartitionStore<?> partitions : List.of(productRepository.getPartitions(), discountRepository.getPartitions())) {
+            for (String store : partitions.stores()) {
+                for (LocalDate date : partitions.datesOnOrBefore(store, to)) {
+                    if (date.isAfter(from)) dates.add(date);
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            result.add(date.toString());
+        }
+        return result;
+    }
+
+    /**
+     * @return The stores with at least one product file, in name order
+     */
+    public Set<String> getStores() {
+        return new TreeSet<>(productRepository.getPartitions().stores());
+    }
+
     public Map<String, List<Product>> getProductsForDate(String date) {
         return productRepository.getProductsForDate(date);
     }
@@ -53,13 +398,31 @@ public class MarketDataRepository {
         for (String store : getDiscountsForDate(date).keySet()) {
             List<Discount> activeDiscounts = discountRepository.getActiveDiscounts(store, date);
             if (!activeDiscounts.isEmpty()) {
-                result.put(store, activeDiscounts);
+                // Copied because callers are free to sort or filter the lists they get
+                result.put(store, new ArrayList<>(activeDiscounts));
             }
         }
         
         return result;
     }
 
+    /**
+     * Gets, per store, the discounts that started between sinceDate and date, inclusive, and are
+     * still valid on date; stores with none are left out
+     *
+     * @return An unmodifiable map of unmodifiable lists, in store name order
+     */
+    public Map<String, List<Discount>> getNewDiscounts(String sinceDate, String date) {
+        Map<String, List<Discount>> result = new TreeMap<>();
+        for (String store : discountRepository.getPartitions().stores()) {
+            List<Discount> discounts = discountRepository.getNewDiscounts(store, sinceDate, date);
+            if (!discounts.isEmpty()) {
+                result.put(store, discounts);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
     public Product getProduct(String store, String productId, String date) {
         return productRepository.findProductById(store, productId, date);
     }
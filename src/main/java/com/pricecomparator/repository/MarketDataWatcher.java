@@ -0,0 +1,172 @@
+package com.pricecomparator.repository;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.pricecomparator.loader.FeedParser;
+import com.pricecomparator.loader.MarketDataFile;
+import com.pricecomparator.loader.StringDictionary;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Background daemon that watches the data folder and ingests new or modified
+ * store/date CSV files into a MarketDataRepository without a restart.
+ * Only the files that changed are parsed; everything already loaded is kept.
+ * <p>
+ * A file is only ingested once its size and modification time are the same on two checks at
+ * least SETTLE_MILLIS apart, so a file still being written is not read half way. A file that
+ * fails to load keeps the partition loaded before it.
+ */
+public class MarketDataWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = 200;
+
+    private final MarketDataRepository marketDataRepository;
+    private final Path directory;
+    private final FeedParser parser;
+    // Last modified time and size of every file already ingested, to skip duplicate events
+    private final Map<String, String> ingestedVersions = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public MarketDataWatcher(MarketDataRepository marketDataRepository, Path directory, FeedParser parser) {
+        this.marketDataRepository = marketDataRepository;
+        this.directory = directory;
+        this.parser = parser;
+    }
+
+    /**
+     * Starts watching. Files already in the folder are assumed to be loaded.
+     */
+    public synchronized void start() throws IOException {
+        if (running) return;
+
+        File[] existing = directory.toFile().listFiles();
+        if (existing != null) {
+            for (File file : existing) {
+                ingestedVersions.put(file.getName(), versionOf(file));
+            }
+        }
+
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        running = true;
+
+        thread = new Thread(this::watchLoop, "market-data-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        // Changed files by name, waiting for their size and modification time to settle
+        Map<String, PendingFile> pending = new LinkedHashMap<>();
+        try {
+            while (running) {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    collect(key, pending);
+                }
+                ingestSettledFiles(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Watcher was closed
+        }
+    }
+
+    private void collect(WatchKey key, Map<String, PendingFile> pending) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                System.out.println("Warning: file watcher overflowed, some changes in " + directory + " may be missed");
+                continue;
+            }
+            Path name = (Path) event.context();
+            MarketDataFile file = MarketDataFile.fromFile(directory.resolve(name).toFile());
+            if (file != null) {
+                // A new event restarts the wait
+                pending.put(file.getFileName(), new PendingFile(file));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Ingests the pending files that did not change since they were last checked
+     */
+    private void ingestSettledFiles(Map<String, PendingFile> pending) {
+        long now = System.currentTimeMillis();
+        Iterator<PendingFile> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingFile candidate = iterator.next();
+            if (now - candidate.checkedAt < SETTLE_MILLIS) continue;
+
+            File file = candidate.file.getFile();
+            if (!file.isFile()) {
+                iterator.remove();
+                continue;
+            }
+            String version = versionOf(file);
+            // Empty files are usually still being created
+            if (!version.equals(candidate.version) || file.length() == 0) {
+                candidate.version = version;
+                candidate.checkedAt = now;
+                continue;
+            }
+            iterator.remove();
+            ingest(candidate.file, version);
+        }
+    }
+
+    private void ingest(MarketDataFile file, String version) {
+        if (version.equals(ingestedVersions.get(file.getFileName()))) return;
+
+        long start = System.nanoTime();
+        try {
+            int rows = marketDataRepository.ingestFile(file, parser);
+            ingestedVersions.put(file.getFileName(), version);
+            System.out.println("Loaded " + rows + (file.isDiscountFile() ? " discounts" : " products") + " for "
+                    + file.getStoreName() + " from " + file.getFileName() + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            // The shared dictionary keeps the strings of replaced files, so show its growth on every reload
+            System.out.println(StringDictionary.shared().formatSavings());
+        } catch (Exception e) {
+            // Nothing was replaced; the next change to the file is tried again
+            System.out.println("Error loading " + file.getFileName() + ", keeping the data loaded before: " + e.getMessage());
+        }
+    }
+
+    private static String versionOf(File file) {
+        return file.lastModified() + ":" + file.length();
+    }
+
+    private static class PendingFile {
+        final MarketDataFile file;
+        String version;
+        long checkedAt;
+
+        PendingFile(MarketDataFile file) {
+            this.file = file;
+            this.version = versionOf(file.getFile());
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+}
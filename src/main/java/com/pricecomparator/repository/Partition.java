@@ -0,0 +1,12 @@
+package com.pricecomparator.repository;
+
+/**
+ * The rows of one store/date file together with any lookup structures built for them.
+ */
+public interface Partition {
+
+    /**
+     * Number of rows, used to enforce the resident row budget
+     */
+    int size();
+}
@@ -0,0 +1,239 @@
+package com.pricecomparator.repository;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the store/date partitions behind a repository.
+ * <p>
+ * A partition is either put in already loaded, or registered with a loader and parsed
+ * the first time it is read. Partitions that have a loader can be evicted again when
+ * the resident row count goes over the memory budget, least recently used first.
+ * Partitions put in without a loader are always kept.
+ */
+public class PartitionStore<P extends Partition> {
+    // Dates are kept sorted so "latest on or before" is a floor lookup
+    private final Map<String, NavigableMap<LocalDate, Slot<P>>> slots = new HashMap<>();
+    // Loaded partitions that can be reloaded, in least recently used order
+    private final LinkedHashMap<Slot<P>, Boolean> evictable = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxResidentRows;
+    private long residentRows;
+    private long loads;
+    private long evictions;
+
+    /**
+     * Creates a store without a memory budget
+     */
+    public PartitionStore() {
+        this(0);
+    }
+
+    /**
+     * @param maxResidentRows Rows kept in memory across reloadable partitions, or 0 for no limit
+     */
+    public PartitionStore(long maxResidentRows) {
+        this.maxResidentRows = maxResidentRows;
+    }
+
+    /**
+     * Creates a store holding already loaded partitions
+     *
+     * @param partitionOf Builds a partition, with its indexes, from the rows of one file
+     */
+    public static <T, P extends Partition> PartitionStore<P> of(Map<String, Map<LocalDate, List<T>>> data,
+                                                               Function<List<T>, P> partitionOf) {
+        PartitionStore<P> store = new PartitionStore<>();
+        data.forEach((storeName, dateMap) ->
+            dateMap.forEach((date, rows) -> store.put(storeName, date, partitionOf.apply(rows))));
+        return store;
+    }
+
+    /**
+     * Adds or replaces a loaded partition that is never evicted
+     */
+    public void put(String store, LocalDate date, P partition) {
+        put(store, date, partition, null);
+    }
+
+    /**
+     * Adds or replaces a loaded partition; with a loader it may be evicted and reloaded later
+     */
+    public synchronized void put(String store, LocalDate date, P partition, Supplier<P> loader) {
+        Slot<P> slot = replaceSlot(store, date, loader);
+        slot.partition = partition;
+        markResident(slot);
+    }
+
+    /**
+     * Registers a partition that is only loaded the first time it is read
+     */
+    public synchronized void register(String store, LocalDate date, Supplier<P> loader) {
+        replaceSlot(store, date, Objects.requireNonNull(loader));
+    }
+
+    public synchronized Set<String> stores() {
+        return new HashSet<>(slots.keySet());
+    }
+
+    /**
+     * Finds the most recent partition date that's not after targetDate, without loading anything
+     */
+    public synchronized LocalDate latestDateOnOrBefore(String store, LocalDate targetDate) {
+        NavigableMap<LocalDate, Slot<P>> dateMap = slots.get(store);
+        return dateMap != null ? dateMap.floorKey(targetDate) : null;
+    }
+
+    /**
+     * Resolves, in one consistent read, the date each store uses on targetDate; stores with no such date are left out
+     */
+    public synchronized Map<String, LocalDate> latestDatesOnOrBefore(LocalDate targetDate) {
+        Map<String, LocalDate> resolved = new HashMap<>();
+        slots.forEach((store, dateMap) -> {
+            LocalDate date = dateMap.floorKey(targetDate);
+            if (date != null) resolved.put(store, date);
+        });
+        return resolved;
+    }
+
+    /**
+     * Lists the partition dates on or before targetDate, oldest first, without loading anything
+     */
+    public synchronized List<LocalDate> datesOnOrBefore(String store, LocalDate targetDate) {
+        NavigableMap<LocalDate, Slot<P>> dateMap = slots.get(store);
+        if (dateMap == null) return new ArrayList<>();
+
+        // Copied so callers can load partitions without holding the store lock
+        return new ArrayList<>(dateMap.headMap(targetDate, true).keySet());
+    }
+
+    /**
+     * Returns a partition, loading it first if needed
+     *
+     * @return The partition, or null if it does not exist
+     */
+    public P get(String store, LocalDate date) {
+        Slot<P> slot;
+        synchronized (this) {
+            NavigableMap<LocalDate, Slot<P>> dateMap = slots.get(store);
+            slot = dateMap != null ? dateMap.get(date) : null;
+            if (slot == null) return null;
+            if (slot.partition != null) {
+                if (slot.loader != null) evictable.get(slot); // touch for LRU order
+                return slot.partition;
+            }
+        }
+
+        // Parse outside the store lock so other partitions stay readable meanwhile
+        P partition = slot.load();
+
+        synchronized (this) {
+            if (partition != null && slot.partition == partition && !evictable.containsKey(slot) && isCurrent(slot)) {
+                loads++;
+                markResident(slot);
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * Materializes every partition, loading any that are not resident
+     */
+    public Map<String, Map<LocalDate, P>> toMap() {
+        Map<String, Map<LocalDate, P>> result = new HashMap<>();
+        for (String store : stores()) {
+            for (LocalDate date : datesOnOrBefore(store, LocalDate.MAX)) {
+                P partition = get(store, date);
+                if (partition != null) {
+                    result.computeIfAbsent(store, k -> new HashMap<>()).put(date, partition);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized long getResidentRows() {
+        return residentRows;
+    }
+
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private Slot<P> replaceSlot(String store, LocalDate date, Supplier<P> loader) {
+        Slot<P> previous = slots.computeIfAbsent(store, k -> new TreeMap<>()).get(date);
+        if (previous != null) {
+            release(previous);
+        }
+        Slot<P> slot = new Slot<>(store, date, loader);
+        slots.get(store).put(date, slot);
+        return slot;
+    }
+
+    private boolean isCurrent(Slot<P> slot) {
+        NavigableMap<LocalDate, Slot<P>> dateMap = slots.get(slot.store);
+        return dateMap != null && dateMap.get(slot.date) == slot;
+    }
+
+    private void markResident(Slot<P> slot) {
+        residentRows += slot.partition.size();
+        if (slot.loader == null) return;
+
+        evictable.put(slot, Boolean.TRUE);
+        if (maxResidentRows <= 0) return;
+
+        Iterator<Slot<P>> lru = evictable.keySet().iterator();
+        while (residentRows > maxResidentRows && lru.hasNext()) {
+            Slot<P> coldest = lru.next();
+            if (coldest == slot) continue;
+            lru.remove();
+            residentRows -= coldest.partition.size();
+            coldest.partition = null;
+            evictions++;
+        }
+    }
+
+    private void release(Slot<P> slot) {
+        if (slot.partition != null && (slot.loader == null || evictable.remove(slot) != null)) {
+            residentRows -= slot.partition.size();
+        }
+        slot.partition = null;
+    }
+
+    private static class Slot<P extends Partition> {
+        private final String store;
+        private final LocalDate date;
+        private final Supplier<P> loader;
+        private volatile P partition;
+
+        Slot(String store, LocalDate date, Supplier<P> loader) {
+            this.store = store;
+            this.date = date;
+            this.loader = loader;
+        }
+
+        /**
+         * Loads the partition once even if several threads ask at the same time
+         */
+        synchronized P load() {
+            P loaded = partition;
+            if (loaded == null && loader != null) {
+                try {
+                    loaded = loader.get();
+                } catch (UncheckedIOException e) {
+                    // Left unloaded so the next query tries again, rather than keeping an empty partition
+                    System.out.println("Error loading " + store + " " + date + ": " + e.getMessage());
+                    return null;
+                }
+                partition = loaded;
+            }
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.pricecomparator.repository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import com.pricecomparator.model.PriceChange;
+import com.pricecomparator.model.Discount;
+
+/**
+ * Works out which discounted prices of a store differ between two days, each priced with the
+ * product and discount partitions the store used on that day.
+ * <p>
+ * Only the candidates are priced: the rows of the product partitions when those differ, and the
+ * products whose active discount percentage differs. So an ingested file costs the rows of the
+ * partition it replaces, and moving to a later day costs the discounts active on the two days.
+ */
+class PriceChangeDetector {
+
+    /**
+     * @param oldProducts The product partition used on oldDay, or null
+     * @param oldDiscounts The discount partition used on oldDay, or null
+     * @return One change per product whose discounted price differs, dated newDay
+     */
+    List<PriceChange> storeChanges(String store,
+                                   LocalDate oldDay, ProductPartition oldProducts, DiscountPartition oldDiscounts,
+                                   LocalDate newDay, ProductPartition newProducts, DiscountPartition newDiscounts) {
+        Map<String, Integer> oldPercents = activePercents(oldDiscounts, oldDay);
+        Map<String, Integer> newPercents = activePercents(newDiscounts, newDay);
+
+        Set<String> candidates = new LinkedHashSet<>();
+        if (oldProducts != newProducts) {
+            addChangedRows(newProducts, oldProducts, candidates);
+            addChangedRows(oldProducts, newProducts, candidates);
+        }
+        for (Map.Entry<String, Integer> entry : newPercents.entrySet()) {
+            if (!entry.getValue().equals(oldPercents.get(entry.getKey()))) candidates.add(entry.getKey());
+        }
+        for (String productId : oldPercents.keySet()) {
+            if (!newPercents.containsKey(productId)) candidates.add(productId);
+        }
+
+        String date = newDay.toString();
+        List<PriceChange> changes = new ArrayList<>();
+        for (String productId : candidates) {
+            double oldPrice = effectivePrice(oldProducts, oldPercents, productId);
+            double newPrice = effectivePrice(newProducts, newPercents, productId);
+            // NaN never equals itself, so a product sold on neither day is skipped separately
+            if (oldPrice == newPrice || (Double.isNaN(oldPrice) && Double.isNaN(newPrice))) continue;
+            changes.add(new PriceChange(store, productId, date, oldPrice, newPrice));
+        }
+        return changes;
+    }
+
+    /**
+     * Adds the products whose first row in a partition is missing from the other one or has another price there
+     */
+    private static void addChangedRows(ProductPartition products, ProductPartition other, Set<String> candidates) {
+        if (products == null) return;
+        for (int row = 0; row < products.size(); row++) {
+            String productId = products.getProductId(row);
+            // Later rows of a product are shadowed by the first, as in every other lookup
+            if (products.rowOf(productId) != row) continue;
+            int otherRow = other != null ? other.rowOf(productId) : -1;
+            if (otherRow < 0 || other.getPriceBani(otherRow) != products.getPriceBani(row)) {
+                candidates.add(productId);
+            }
+        }
+    }
+
+    /**
+     * The percentage of the first discount active on a day for every discounted product
+     */
+    private static Map<String, Integer> activePercents(DiscountPartition discounts, LocalDate day) {
+        if (discounts == null) return Collections.emptyMap();
+        Map<String, Integer> percents = new HashMap<>();
+        for (Discount discount : discounts.findActive(day)) {
+            percents.putIfAbsent(discount.getProductId(), discount.getDiscountPercent());
+        }
+        return percents;
+    }
+
+    /**
+     * @return The discounted price, computed like EffectivePriceMatrix does, or NaN if the product is not sold
+     */
+    private static double effectivePrice(ProductPartition products, Map<String, Integer> percents, String productId) {
+        int row = products != null ? products.rowOf(productId) : -1;
+        if (row < 0) return Double.NaN;
+        int percent = percents.getOrDefault(productId, 0);
+        return products.getPriceBani(row) / 100.0 * (1 - percent / 100.0);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pricecomparator.repository;
+
+import java.util.List;
+
+import com.pricecomparator.model.PriceChange;
+
+/**
+ * Told about the discounted prices that change today, because a file was ingested or today moved
+ */
+public interface PriceChangeListener {
+    /**
+     * Called on the thread that ingested the file or moved today, once the new prices are visible to readers
+     *
+     * @param changes The changed prices of one store, one per product
+     */
+    void pricesChanged(List<PriceChange> changes);
+}
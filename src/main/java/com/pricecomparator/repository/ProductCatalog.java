@@ -0,0 +1,274 @@
+package com.pricecomparator.repository;
+
+import java.util.*;
+
+import com.pricecomparator.loader.StringDictionary;
+import com.pricecomparator.model.EpochDays;
+import com.pricecomparator.model.Product;
+
+/**
+ * Descriptor columns (id, name, category, brand, quantity, unit, currency) that product partitions
+ * point into by slot.
+ * <p>
+ * A plain catalog belongs to one partition and gets one slot per row. A delta catalog is shared by
+ * all dates of a store: equal descriptors get the same slot across snapshots, and each slot keeps
+ * only the days its price changed. A snapshot whose rows match the previous one also reuses its
+ * row list, so an unchanged weekly file costs no memory per row.
+ * <p>
+ * Only one thread appends at a time. Readers see the columns through a volatile reference and
+ * price series are immutable, so partitions published earlier stay readable while data is added.
+ */
+class ProductCatalog {
+    private final StringDictionary dictionary;
+    private final boolean delta;
+    private final Map<Descriptor, Integer> slotByDescriptor;
+    private volatile Columns columns;
+    private int size;
+    // Delta state: the last appended snapshot, since snapshots must arrive in date order
+    private int lastDay = EpochDays.NONE;
+    private ProductPartition.Rows lastRows;
+    private long priceChanges;
+
+    private ProductCatalog(StringDictionary dictionary, boolean delta, int capacity) {
+        this.dictionary = dictionary;
+        this.delta = delta;
+        this.slotByDescriptor = delta ? new HashMap<>() : null;
+        this.columns = new Columns(Math.max(capacity, 16), delta);
+    }
+
+    static ProductCatalog plain(StringDictionary dictionary, int capacity) {
+        return new ProductCatalog(dictionary, false, capacity);
+    }
+
+    static ProductCatalog delta(StringDictionary dictionary) {
+        return new ProductCatalog(dictionary, true, 16);
+    }
+
+    StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds a slot for every product, in order; used by plain catalogs
+     */
+    synchronized void appendAll(List<Product> products) {
+        for (Product product : products) {
+            addSlot(Descriptor.of(product, dictionary));
+        }
+    }
+
+    /**
+     * Stores a snapshot as price changes against the earlier ones
+     *
+     * @return A partition viewing the snapshot, or null if it cannot be stored as a delta: it is
+     *         not after the last appended date, lists a descriptor twice, or has rows posted on another day
+     */
+    synchronized ProductPartition appendSnapshot(int day, List<Product> products) {
+        if (!delta || (lastDay != EpochDays.NONE && day <= lastDay)) return null;
+
+        // Check the whole snapshot before adding slots, so a rejected one leaves the catalog unchanged
+        Descriptor[] descriptors = new Descriptor[products.size()];
+        Set<Descriptor> seen = new HashSet<>(products.size() * 2);
+        for (int row = 0; row < descriptors.length; row++) {
+            Product product = products.get(row);
+            if (product.getDatePostedEpochDay() != day) return null;
+            descriptors[row] = Descriptor.of(product, dictionary);
+            if (!seen.add(descriptors[row])) return null;
+        }
+
+        int[] slots = new int[descriptors.length];
+        for (int row = 0; row < slots.length; row++) {
+            Integer slot = slotByDescriptor.get(descriptors[row]);
+            if (slot == null) {
+                slot = addSlot(descriptors[row]);
+                slotByDescriptor.put(descriptors[row], slot);
+            }
+            slots[row] = slot;
+        }
+
+        Columns current = columns;
+        for (int row = 0; row < slots.length; row++) {
+            PriceSeries series = current.series[slots[row]];
+            long price = products.get(row).getPriceBani();
+            if (series == null || series.lastPrice() != price) {
+                current.series[slots[row]] = series == null ? new PriceSeries(day, price) : series.append(day, price);
+                priceChanges++;
+            }
+        }
+
+        ProductPartition.Rows rows = lastRows != null && Arrays.equals(lastRows.slots, slots)
+                ? lastRows
+                : new ProductPartition.Rows(slots, this);
+        lastDay = day;
+        lastRows = rows;
+        return new ProductPartition(this, rows, day);
+    }
+
+    int idOf(int slot) {
+        return columns.ids[slot];
+    }
+
+    /**
+     * @return The price of a slot on a day, or 0 if it had none yet
+     */
+    long priceOn(int slot, int day) {
+        PriceSeries series = columns.series[slot];
+        return series != null ? series.priceOn(day) : 0;
+    }
+
+    Product toProduct(int slot, long priceBani, int datePostedEpochDay) {
+        Columns c = columns;
+        return new Product(dictionary.decode(c.ids[slot]), dictionary.decode(c.names[slot]),
+                dictionary.decode(c.categories[slot]), dictionary.decode(c.brands[slot]), c.quantities[slot],
+                dictionary.decode(c.units[slot]), priceBani, dictionary.decode(c.currencies[slot]),
+                datePostedEpochDay);
+    }
+
+    double quantityOf(int slot) {
+        return columns.quantities[slot];
+    }
+
+    synchronized int slotCount() {
+        return size;
+    }
+
+    /**
+     * Number of stored prices; without deltas this would be one per row of every snapshot
+     */
+    synchronized long getPriceChangeCount() {
+        return priceChanges;
+    }
+
+    private int addSlot(Descriptor descriptor) {
+        Columns current = columns;
+        if (size == current.ids.length) {
+            current = current.grow(size * 2);
+        }
+        current.ids[size] = descriptor.id;
+        current.names[size] = descriptor.name;
+        current.categories[size] = descriptor.category;
+        current.brands[size] = descriptor.brand;
+        current.quantities[size] = descriptor.quantity;
+        current.units[size] = descriptor.unit;
+        current.currencies[size] = descriptor.currency;
+        columns = current;
+        return size++;
+    }
+
+    private static class Columns {
+        final int[] ids;
+        final int[] names;
+        final int[] categories;
+        final int[] brands;
+        final double[] quantities;
+        final int[] units;
+        final int[] currencies;
+        final PriceSeries[] series;
+
+        Columns(int capacity, boolean withSeries) {
+            this(new int[capacity], new int[capacity], new int[capacity], new int[capacity], new double[capacity],
+                    new int[capacity], new int[capacity], withSeries ? new PriceSeries[capacity] : null);
+        }
+
+        private Columns(int[] ids, int[] names, int[] categories, int[] brands, double[] quantities,
+                        int[] units, int[] currencies, PriceSeries[] series) {
+            this.ids = ids;
+            this.names = names;
+            this.categories = categories;
+            this.brands = brands;
+            this.quantities = quantities;
+            this.units = units;
+            this.currencies = currencies;
+            this.series = series;
+        }
+
+        Columns grow(int capacity) {
+            return new Columns(Arrays.copyOf(ids, capacity), Arrays.copyOf(names, capacity),
+                    Arrays.copyOf(categories, capacity), Arrays.copyOf(brands, capacity),
+                    Arrays.copyOf(quantities, capacity), Arrays.copyOf(units, capacity),
+                    Arrays.copyOf(currencies, capacity), series != null ? Arrays.copyOf(series, capacity) : null);
+        }
+    }
+
+    /**
+     * The days a slot's price changed, oldest first; replaced rather than modified when it grows
+     */
+    private static class PriceSeries {
+        private final int[] days;
+        private final long[] prices;
+
+        PriceSeries(int day, long price) {
+            this(new int[] {day}, new long[] {price});
+        }
+
+        private PriceSeries(int[] days, long[] prices) {
+            this.days = days;
+            this.prices = prices;
+        }
+
+        PriceSeries append(int day, long price) {
+            int[] newDays = Arrays.copyOf(days, days.length + 1);
+            long[] newPrices = Arrays.copyOf(prices, prices.length + 1);
+            newDays[days.length] = day;
+            newPrices[prices.length] = price;
+            return new PriceSeries(newDays, newPrices);
+        }
+
+        long lastPrice() {
+            return prices[prices.length - 1];
+        }
+
+        long priceOn(int day) {
+            int position = Arrays.binarySearch(days, day);
+            if (position < 0) position = -position - 2;
+            return position >= 0 ? prices[position] : 0;
+        }
+    }
+
+    private static class Descriptor {
+        private final int id;
+        private final int name;
+        private final int category;
+        private final int brand;
+        private final double quantity;
+        private final int unit;
+        private final int currency;
+
+        private Descriptor(int id, int name, int category, int brand, double quantity, int unit, int currency) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.brand = brand;
+            this.quantity = quantity;
+            this.unit = unit;
+            this.currency = currency;
+        }
+
+        static Descriptor of(Product product, StringDictionary dictionary) {
+            return new Descriptor(dictionary.encode(product.getId()), dictionary.encode(product.getName()),
+                    dictionary.encode(product.getCategory()), dictionary.encode(product.getBrand()),
+                    product.getQuantity(), dictionary.encode(product.getUnit()),
+                    dictionary.encode(product.getCurrency()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Descriptor)) return false;
+            Descriptor other = (Descriptor) o;
+            return id == other.id && name == other.name && category == other.category && brand == other.brand
+                    && Double.compare(quantity, other.quantity) == 0 && unit == other.unit && currency == other.currency;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = id;
+            hash = 31 * hash + name;
+            hash = 31 * hash + category;
+            hash = 31 * hash + brand;
+            hash = 31 * hash + Double.hashCode(quantity);
+            hash = 31 * hash + unit;
+            return 31 * hash + currency;
+        }
+    }
+}
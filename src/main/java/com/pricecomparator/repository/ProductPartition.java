@@ -0,0 +1,181 @@
+package com.pricecomparator.repository;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+import com.pricecomparator.loader.StringDictionary;
+import com.pricecomparator.model.Product;
+
+/**
+ * Products of one store/date file, stored column by column.
+ * <p>
+ * Each row points to a slot of a ProductCatalog holding the descriptor columns as codes from a
+ * shared StringDictionary. A partition built from a list owns its catalog and keeps its own bani
+ * prices and epoch-day dates. A delta partition shares the catalog, and possibly its rows, with
+ * the other dates of the store and reads prices from the catalog's price series.
+ * Product objects are only created when a caller asks for them: a single row is decoded on its
+ * own, while the full list is built once and kept for later callers until memory runs short, so
+ * delta snapshots still cost little.
+ */
+public class ProductPartition implements Partition {
+    private static final int EMPTY = -1;
+
+    private final ProductCatalog catalog;
+    private final Rows rows;
+    // Per row values of a plain partition; null for a delta partition
+    private final long[] pricesBani;
+    private final int[] datesPosted;
+    // Snapshot day of a delta partition
+    private final int day;
+    // Materialized rows, shared by every caller; rebuilt if collected
+    private volatile SoftReference<List<Product>> products = new SoftReference<>(null);
+
+    public ProductPartition(List<Product> products) {
+        this(products, StringDictionary.shared());
+    }
+
+    public ProductPartition(List<Product> products, StringDictionary dictionary) {
+        this.catalog = ProductCatalog.plain(dictionary, products.size());
+        catalog.appendAll(products);
+        this.rows = new Rows(products.size(), catalog);
+        this.pricesBani = new long[products.size()];
+        this.datesPosted = new int[products.size()];
+        for (int row = 0; row < products.size(); row++) {
+            pricesBani[row] = products.get(row).getPriceBani();
+            datesPosted[row] = products.get(row).getDatePostedEpochDay();
+        }
+        this.day = 0;
+    }
+
+    /**
+     * Creates a view of one snapshot stored in a delta catalog
+     */
+    ProductPartition(ProductCatalog catalog, Rows rows, int day) {
+        this.catalog = catalog;
+        this.rows = rows;
+        this.pricesBani = null;
+        this.datesPosted = null;
+        this.day = day;
+    }
+
+    /**
+     * Every row, in file order, materialized on first use
+     *
+     * @return An unmodifiable list shared with other callers
+     */
+    public List<Product> getProducts() {
+        List<Product> materialized = products.get();
+        if (materialized == null) {
+            // Partitions are immutable, so two threads racing here build equal lists
+            Product[] all = new Product[rows.count];
+            for (int row = 0; row < rows.count; row++) {
+                all[row] = buildProduct(row);
+            }
+            materialized = Collections.unmodifiableList(Arrays.asList(all));
+            products = new SoftReference<>(materialized);
+        }
+        return materialized;
+    }
+
+    public Product findById(String productId) {
+        int row = rowOf(productId);
+        return row != EMPTY ? getProduct(row) : null;
+    }
+
+    /**
+     * @return The first row of the product, or -1 if this partition does not have it
+     */
+    public int rowOf(String productId) {
+        int code = catalog.getDictionary().codeOf(productId);
+        if (code == StringDictionary.NULL_CODE) return EMPTY;
+        return rows.rowBySlot[rows.tableSlotOf(code, catalog)];
+    }
+
+    public String getProductId(int row) {
+        return catalog.getDictionary().decode(catalog.idOf(rows.slot(row)));
+    }
+
+    public long getPriceBani(int row) {
+        return pricesBani != null ? pricesBani[row] : catalog.priceOn(rows.slot(row), day);
+    }
+
+    public double getQuantity(int row) {
+        return catalog.quantityOf(rows.slot(row));
+    }
+
+    /**
+     * Reuses the materialized row if the full list is built, otherwise decodes only this row
+     */
+    public Product getProduct(int row) {
+        List<Product> materialized = products.get();
+        return materialized != null ? materialized.get(row) : buildProduct(row);
+    }
+
+    private Product buildProduct(int row) {
+        return catalog.toProduct(rows.slot(row), getPriceBani(row), datesPosted != null ? datesPosted[row] : day);
+    }
+
+    /**
+     * Whether this partition shares its rows with another one, as unchanged delta snapshots do
+     */
+    public boolean sharesRowsWith(ProductPartition other) {
+        return rows == other.rows;
+    }
+
+    @Override
+    public int size() {
+        return rows.count;
+    }
+
+    /**
+     * The catalog slots of a snapshot in file order, with an open addressing table from
+     * product ID code to the first row holding it
+     */
+    static class Rows {
+        // Null when row i is slot i
+        final int[] slots;
+        final int count;
+        // Row for each table slot, EMPTY for free ones; the size is a power of two
+        private final int[] rowBySlot;
+
+        Rows(int count, ProductCatalog catalog) {
+            this(null, count, catalog);
+        }
+
+        Rows(int[] slots, ProductCatalog catalog) {
+            this(slots, slots.length, catalog);
+        }
+
+        private Rows(int[] slots, int count, ProductCatalog catalog) {
+            this.slots = slots;
+            this.count = count;
+            this.rowBySlot = new int[Integer.highestOneBit(Math.max(count, 1) * 2) * 2];
+            Arrays.fill(rowBySlot, EMPTY);
+
+            for (int row = 0; row < count; row++) {
+                // Keep the first row for an ID, like a scan of the list would
+                int tableSlot = tableSlotOf(catalog.idOf(slot(row)), catalog);
+                if (rowBySlot[tableSlot] == EMPTY) {
+                    rowBySlot[tableSlot] = row;
+                }
+            }
+        }
+
+        int slot(int row) {
+            return slots != null ? slots[row] : row;
+        }
+
+        /**
+         * Finds the table slot holding the ID code, or the free one where it would go
+         */
+        private int tableSlotOf(int idCode, ProductCatalog catalog) {
+            int mask = rowBySlot.length - 1;
+            int hash = idCode * 0x9E3779B9;
+            int tableSlot = (hash ^ hash >>> 16) & mask;
+            while (rowBySlot[tableSlot] != EMPTY && catalog.idOf(slot(rowBySlot[tableSlot])) != idCode) {
+                tableSlot = (tableSlot + 1) & mask;
+            }
+            return tableSlot;
+        }
+    }
+}
@@ -1,56 +1,94 @@
 package com.pricecomparator.repository;
 
+import com.pricecomparator.loader.StringDictionary;
 import com.pricecomparator.model.Product;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class ProductRepository {
-    private final Map<String, Map<LocalDate, List<Product>>> storeProductsByDate;
-    private Map<String, List<Product>> cachedProducts;
-    private LocalDate cachedDate;
+    private final PartitionStore<ProductPartition> partitions;
+    // Keyed by the partition date each store resolves to, so target dates sharing partitions share an entry
+    private final LruCache<Map<String, LocalDate>, Map<String, List<Product>>> cache = new LruCache<>();
+    // Per store catalogs that keep only price changes between snapshots; null unless delta ingestion is on
+    private final Map<String, ProductCatalog> deltaCatalogs;
 
     public ProductRepository(Map<String, Map<LocalDate, List<Product>>> storeProductsByDate) {
-        this.storeProductsByDate = storeProductsByDate;
-        this.cachedProducts = new HashMap<>();
+        this(PartitionStore.of(storeProductsByDate, ProductPartition::new));
+    }
+
+    /**
+     * Creates a repository over partitions that may be loaded lazily
+     */
+    public ProductRepository(PartitionStore<ProductPartition> partitions) {
+        this(partitions, false);
+    }
+
+    private ProductRepository(PartitionStore<ProductPartition> partitions, boolean deltaIngestion) {
+        this.partitions = partitions;
+        this.deltaCatalogs = deltaIngestion ? new HashMap<>() : null;
+    }
+
+    /**
+     * Creates a repository that stores each store's snapshots as shared product descriptors plus
+     * the price changes between dates, instead of a full copy per file.
+     * Snapshots that are added out of date order, or that list a product twice, are stored in full.
+     */
+    public static ProductRepository createWithDeltaIngestion(Map<String, Map<LocalDate, List<Product>>> storeProductsByDate) {
+        ProductRepository repository = new ProductRepository(new PartitionStore<>(), true);
+        storeProductsByDate.forEach((store, dateMap) ->
+            new TreeMap<>(dateMap).forEach((date, products) -> repository.putProducts(store, date, products, null)));
+        return repository;
+    }
+
+    /**
+     * Adds or replaces the products of one store/date file and drops cached results built from it
+     */
+    public void putProducts(String store, LocalDate date, List<Product> products, Supplier<List<Product>> reloader) {
+        ProductPartition partition = null;
+        if (deltaCatalogs != null) {
+            ProductCatalog catalog;
+            synchronized (deltaCatalogs) {
+                catalog = deltaCatalogs.computeIfAbsent(store, k -> ProductCatalog.delta(StringDictionary.shared()));
+            }
+            partition = catalog.appendSnapshot((int) date.toEpochDay(), products);
+        }
+        if (partition == null) {
+            partition = new ProductPartition(products);
+        }
+        partitions.put(store, date, partition, reloader != null ? () -> new ProductPartition(reloader.get()) : null);
+
+        // Only results built from the replaced partition can be stale; new dates resolve to new keys
+        cache.invalidate(resolved -> date.equals(resolved.get(store)));
     }
 
     /**
      * Gets all products for all stores for the most recent date before or on targetDate
+     *
+     * @return An unmodifiable map, shared with other callers through the cache
      */
     public Map<String, List<Product>> getProductsForDate(String dateStr) {
         LocalDate targetDate = LocalDate.parse(dateStr);
-        
-        // Return cached result if already computed for this date
-        if (targetDate.equals(cachedDate) && !cachedProducts.isEmpty()) {
-            return cachedProducts;
+        long generation = cache.generation();
+        Map<String, LocalDate> resolved = partitions.latestDatesOnOrBefore(targetDate);
+
+        Map<String, List<Product>> cached = cache.get(resolved);
+        if (cached != null) {
+            return cached;
         }
-        
+
         Map<String, List<Product>> result = new HashMap<>();
-        
-        // For each store, find the most recent date before or on the target date
-        for (String store : storeProductsByDate.keySet()) {
-            Map<LocalDate, List<Product>> dateMap = storeProductsByDate.get(store);
-            
-            if (dateMap == null || dateMap.isEmpty()) {
-                continue;
+        resolved.forEach((store, mostRecentDate) -> {
+            // Only this partition is loaded if it is not resident yet
+            ProductPartition partition = partitions.get(store, mostRecentDate);
+            if (partition != null) {
+                result.put(store, partition.getProducts());
             }
-            
-            // Find the most recent date that's not after targetDate
-            Optional<LocalDate> mostRecentDate = dateMap.keySet().stream()
-                .filter(date -> !date.isAfter(targetDate))
-                .max(LocalDate::compareTo);
-                
-            if (mostRecentDate.isPresent()) {
-                result.put(store, dateMap.get(mostRecentDate.get()));
-            }
-        }
-        
-        // Cache the result
-        cachedProducts = result;
-        cachedDate = targetDate;
-        
-        return result;
+        });
+
+        Map<String, List<Product>> view = Collections.unmodifiableMap(result);
+        cache.put(resolved, view, generation);
+        return view;
     }
     
     /**
@@ -61,17 +99,14 @@ public class ProductRepository {
         Map<String, List<Product>> result = new HashMap<>();
         
         // For each store, collect all products from dates before or on targetDate
-        for (String store : storeProductsByDate.keySet()) {
-            Map<LocalDate, List<Product>> dateMap = storeProductsByDate.get(store);
-            
-            if (dateMap == null || dateMap.isEmpty()) {
-                continue;
+        for (String store : partitions.stores()) {
+            List<Product> allProducts = new ArrayList<>();
+            for (LocalDate date : partitions.datesOnOrBefore(store, targetDate)) {
+                ProductPartition partition = partitions.get(store, date);
+                if (partition != null) {
+                    allProducts.addAll(partition.getProducts());
+                }
             }
-            
-            List<Product> allProducts = dateMap.entrySet().stream()
-                .filter(entry -> !entry.getKey().isAfter(targetDate))
-                .flatMap(entry -> entry.getValue().stream())
-                .collect(Collectors.toList());
                 
             if (!allProducts.isEmpty()) {
                 result.put(store, allProducts);
@@ -87,13 +122,47 @@ public class ProductRepository {
     }
 
     public Product findProductById(String store, String productId, String dateStr) {
-        return getProductsByStore(store, dateStr).stream()
-                .filter(p -> p.getId().equals(productId))
-                .findFirst()
-                .orElse(null);
+        ProductPartition partition = partitionFor(store, LocalDate.parse(dateStr));
+        return partition != null ? partition.findById(productId) : null;
     }
 
     public Map<String, Map<LocalDate, List<Product>>> getAllProductData() {
-        return storeProductsByDate;
+        Map<String, Map<LocalDate, List<Product>>> result = new HashMap<>();
+        partitions.toMap().forEach((store, dateMap) -> dateMap.forEach((date, partition) ->
+            result.computeIfAbsent(store, k -> new HashMap<>()).put(date, partition.getProducts())));
+        return result;
+    }
+
+    public LruCache<Map<String, LocalDate>, Map<String, List<Product>>> getCache() {
+        return cache;
+    }
+
+    /**
+     * Summarizes how many descriptors and prices delta ingestion stores for the resident rows
+     */
+    public String describeDeltaStorage() {
+        if (deltaCatalogs == null) return "Delta ingestion is off";
+        long prices = 0;
+        long slots = 0;
+        synchronized (deltaCatalogs) {
+            for (ProductCatalog catalog : deltaCatalogs.values()) {
+                prices += catalog.getPriceChangeCount();
+                slots += catalog.slotCount();
+            }
+        }
+        return String.format("Delta storage: %d product descriptors, %d stored prices for %d resident rows",
+                slots, prices, partitions.getResidentRows());
+    }
+
+    public PartitionStore<ProductPartition> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Resolves the partition a store uses on targetDate: the most recent one not after it
+     */
+    private ProductPartition partitionFor(String store, LocalDate targetDate) {
+        LocalDate mostRecentDate = partitions.latestDateOnOrBefore(store, targetDate);
+        return mostRecentDate != null ? partitions.get(store, mostRecentDate) : null;
     }
 } 
\ No newline at end of file
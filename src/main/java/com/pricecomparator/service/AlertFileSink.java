@@ -0,0 +1,41 @@
+package com.pricecomparator.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.pricecomparator.model.AlertTrigger;
+
+/**
+ * Appends every triggered alert to a text file, one line each, flushed as it is published
+ */
+public class AlertFileSink implements AlertSink, Closeable {
+    private final BufferedWriter writer;
+
+    public AlertFileSink(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(AlertTrigger trigger) {
+        try {
+            writer.write(trigger.getDate() + ";" + trigger.getAlert().getUserId() + ";" + trigger.getAlert().getProductId()
+                    + ";" + trigger.getStore() + ";" + String.format("%.2f", trigger.getPrice())
+                    + ";" + trigger.getAlert().getTargetPrice());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing price alert: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
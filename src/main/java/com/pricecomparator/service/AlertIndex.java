@@ -0,0 +1,134 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+
+import com.pricecomparator.model.PriceAlert;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+
+/**
+ * Price alerts grouped by product, with each product's alerts sorted by target price.
+ * <p>
+ * Checking a date reads every watched product's best discounted price once from the price
+ * matrix; the alerts it triggers, those with a target at or above that price, are then the
+ * tail of the product's sorted targets, found with one binary search. A price change of one
+ * product is matched the same way, against the targets between its new and old best price.
+ * Instances are immutable: edited alerts need a new index.
+ */
+public class AlertIndex {
+    private final String[] productIds;
+    private final Map<String, Integer> indexOfProduct;
+    // Per product, in the order of productIds: targets ascending and the alerts holding them
+    private final double[][] targets;
+    private final PriceAlert[][] alerts;
+    private final int alertCount;
+
+    private AlertIndex(String[] productIds, double[][] targets, PriceAlert[][] alerts, int alertCount) {
+        this.productIds = productIds;
+        this.indexOfProduct = new HashMap<>(productIds.length * 2);
+        for (int p = 0; p < productIds.length; p++) {
+            indexOfProduct.put(productIds[p], p);
+        }
+        this.targets = targets;
+        this.alerts = alerts;
+        this.alertCount = alertCount;
+    }
+
+    public static AlertIndex build(Collection<PriceAlert> priceAlerts) {
+        Map<String, List<PriceAlert>> byProductId = new LinkedHashMap<>();
+        for (PriceAlert alert : priceAlerts) {
+            byProductId.computeIfAbsent(alert.getProductId(), k -> new ArrayList<>()).add(alert);
+        }
+
+        String[] productIds = byProductId.keySet().toArray(new String[0]);
+        double[][] targets = new double[productIds.length][];
+        PriceAlert[][] alerts = new PriceAlert[productIds.length][];
+        for (int p = 0; p < productIds.length; p++) {
+            PriceAlert[] sorted = byProductId.get(productIds[p]).toArray(new PriceAlert[0]);
+            // Stable, so alerts with equal targets keep the order they were created in
+            Arrays.sort(sorted, Comparator.comparingDouble(PriceAlert::getTargetPrice));
+            alerts[p] = sorted;
+            targets[p] = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                targets[p][i] = sorted[i].getTargetPrice();
+            }
+        }
+        return new AlertIndex(productIds, targets, alerts, priceAlerts.size());
+    }
+
+    /**
+     * Calls the consumer with every alert whose product's best price is at or below its target,
+     * and that price. Alerts come grouped by product, lowest target first.
+     *
+     * @return The number of triggered alerts
+     */
+    public long forEachTriggered(EffectivePriceMatrix prices, ObjDoubleConsumer<PriceAlert> consumer) {
+        long triggered = 0;
+        for (int p = 0; p < productIds.length; p++) {
+            int row = prices.rowOf(productIds[p]);
+            if (row == EffectivePriceMatrix.NOT_FOUND) continue;
+            int store = prices.getBestStore(row);
+            if (store == EffectivePriceMatrix.NOT_FOUND) continue;
+
+            double bestPrice = prices.getEffectivePrice(row, store);
+            double[] productTargets = targets[p];
+            for (int i = firstAtOrAbove(productTargets, bestPrice); i < productTargets.length; i++) {
+                consumer.accept(alerts[p][i], bestPrice);
+                triggered++;
+            }
+        }
+        return triggered;
+    }
+
+    /**
+     * Calls the consumer with every alert of a product that a change of its best price makes
+     * trigger: those with a target at or above the new price but below the old one. Alerts that
+     * were already triggered before the change are not repeated.
+     *
+     * @param oldBestPrice The best price before the change, or NaN if no store sold the product
+     * @param newBestPrice The best price after the change, or NaN if no store sells the product
+     * @return The number of newly triggered alerts
+     */
+    public int forEachCrossed(String productId, double oldBestPrice, double newBestPrice, Consumer<PriceAlert> consumer) {
+        Integer p = indexOfProduct.get(productId);
+        if (p == null || Double.isNaN(newBestPrice)) return 0;
+
+        double[] productTargets = targets[p];
+        int to = Double.isNaN(oldBestPrice) ? productTargets.length : firstAtOrAbove(productTargets, oldBestPrice);
+        int crossed = 0;
+        for (int i = firstAtOrAbove(productTargets, newBestPrice); i < to; i++) {
+            consumer.accept(alerts[p][i]);
+            crossed++;
+        }
+        return crossed;
+    }
+
+    public List<PriceAlert> findTriggered(EffectivePriceMatrix prices) {
+        List<PriceAlert> triggered = new ArrayList<>();
+        forEachTriggered(prices, (alert, price) -> triggered.add(alert));
+        return triggered;
+    }
+
+    public int getProductCount() {
+        return productIds.length;
+    }
+
+    public int getAlertCount() {
+        return alertCount;
+    }
+
+    private static int firstAtOrAbove(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pricecomparator.service;
+
+import com.pricecomparator.model.AlertTrigger;
+
+/**
+ * Receives the alerts triggered by ingested price changes. A callback is a lambda and a queue
+ * is its add method; AlertFileSink appends them to a file.
+ */
+@FunctionalInterface
+public interface AlertSink {
+    /**
+     * Called on the ingesting thread, once per triggered alert
+     */
+    void publish(AlertTrigger trigger);
+}
@@ -0,0 +1,133 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+
+/**
+ * Computes a basket's optimized cost for a run of days that all use the same product and
+ * discount files.
+ * <p>
+ * Within such a run a product's best price only changes on the days one of its discounts starts
+ * or ends, so the cost is worked out for the first day and then only the products touched by
+ * each discount boundary are priced again.
+ */
+class BasketCostSweep {
+    private final List<String> productIds;
+    private final int[] quantities;
+    private final Map<String, Integer> itemByProductId = new HashMap<>();
+
+    BasketCostSweep(Map<String, Integer> productCounts) {
+        this.productIds = new ArrayList<>(productCounts.keySet());
+        this.quantities = new int[productIds.size()];
+        for (int i = 0; i < productIds.size(); i++) {
+            quantities[i] = productCounts.get(productIds.get(i));
+            itemByProductId.put(productIds.get(i), i);
+        }
+    }
+
+    /**
+     * Fills totals and missingCounts for the days firstDay to lastDay
+     *
+     * @param storeProducts  The products each store sells over the run
+     * @param storeDiscounts The discounts each store has posted over the run, active or not
+     * @param windowStart    The epoch day stored at index 0 of the arrays
+     */
+    void sweep(Map<String, List<Product>> storeProducts, Map<String, List<Discount>> storeDiscounts,
+               int firstDay, int lastDay, int windowStart, double[] totals, int[] missingCounts) {
+        String[] stores = storeProducts.keySet().toArray(new String[0]);
+        int items = productIds.size();
+
+        // Shelf price of every item in every store, NaN where the store does not sell it
+        double[][] prices = new double[items][stores.length];
+        for (double[] row : prices) Arrays.fill(row, Double.NaN);
+        for (int s = 0; s < stores.length; s++) {
+            for (Product product : storeProducts.get(stores[s])) {
+                Integer item = itemByProductId.get(product.getId());
+                if (item != null && Double.isNaN(prices[item][s])) {
+                    prices[item][s] = product.getPrice();
+                }
+            }
+        }
+
+        // Discounts of every item in every store in file order, and the days the item must be repriced
+        List<List<List<Discount>>> offers = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            List<List<Discount>> byStore = new ArrayList<>(stores.length);
+            for (int s = 0; s < stores.length; s++) byStore.add(new ArrayList<>(1));
+            offers.add(byStore);
+        }
+        TreeMap<Integer, Set<Integer>> repricing = new TreeMap<>();
+        for (int s = 0; s < stores.length; s++) {
+            for (Discount discount : storeDiscounts.getOrDefault(stores[s], Collections.emptyList())) {
+                Integer item = itemByProductId.get(discount.getProductId());
+                if (item == null || Double.isNaN(prices[item][s])
+                        || discount.getToEpochDay() < firstDay || discount.getFromEpochDay() > lastDay) {
+                    continue;
+                }
+                offers.get(item).get(s).add(discount);
+                if (discount.getFromEpochDay() > firstDay) {
+                    repricing.computeIfAbsent(discount.getFromEpochDay(), k -> new HashSet<>()).add(item);
+                }
+                if (discount.getToEpochDay() < lastDay) {
+                    repricing.computeIfAbsent(discount.getToEpochDay() + 1, k -> new HashSet<>()).add(item);
+                }
+            }
+        }
+
+        double[] costs = new double[items];
+        for (int i = 0; i < items; i++) {
+            costs[i] = costOn(firstDay, prices[i], offers.get(i)) * quantities[i];
+        }
+
+        int day = firstDay;
+        for (Map.Entry<Integer, Set<Integer>> change : repricing.entrySet()) {
+            fill(costs, day, change.getKey() - 1, windowStart, totals, missingCounts);
+            day = change.getKey();
+            for (int item : change.getValue()) {
+                costs[item] = costOn(day, prices[item], offers.get(item)) * quantities[item];
+            }
+        }
+        fill(costs, day, lastDay, windowStart, totals, missingCounts);
+    }
+
+    /**
+     * @return The lowest discounted unit price across stores, or NaN if no store sells the item
+     */
+    private static double costOn(int day, double[] prices, List<List<Discount>> offers) {
+        double best = Double.NaN;
+        for (int s = 0; s < prices.length; s++) {
+            if (Double.isNaN(prices[s])) continue;
+
+            int percent = 0;
+            for (Discount discount : offers.get(s)) {
+                // The first active discount in file order applies, as in the price matrix
+                if (discount.isActiveOn(day)) {
+                    percent = discount.getDiscountPercent();
+                    break;
+                }
+            }
+            double price = prices[s] * (1 - percent / 100.0);
+            if (Double.isNaN(best) || price < best) best = price;
+        }
+        return best;
+    }
+
+    private static void fill(double[] costs, int fromDay, int toDay, int windowStart, double[] totals, int[] missingCounts) {
+        // Summed in basket order so the totals match a single-day optimization exactly
+        double total = 0;
+        int missing = 0;
+        for (double cost : costs) {
+            if (Double.isNaN(cost)) {
+                missing++;
+            } else {
+                total += cost;
+            }
+        }
+        for (int day = fromDay; day <= toDay; day++) {
+            totals[day - windowStart] = total;
+            missingCounts[day - windowStart] = missing;
+        }
+    }
+}
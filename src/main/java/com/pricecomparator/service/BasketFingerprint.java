@@ -0,0 +1,54 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+
+/**
+ * Cache key of a basket optimization: the product quantities sorted by product ID, the date and
+ * the version of the data, so baskets listing the same products in another order share a key
+ */
+final class BasketFingerprint {
+    private final String[] productIds;
+    private final int[] quantities;
+    private final String date;
+    private final long dataVersion;
+    private final int hash;
+
+    private BasketFingerprint(String[] productIds, int[] quantities, String date, long dataVersion) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.date = date;
+        this.dataVersion = dataVersion;
+        int h = Arrays.hashCode(productIds);
+        h = 31 * h + Arrays.hashCode(quantities);
+        h = 31 * h + date.hashCode();
+        this.hash = 31 * h + Long.hashCode(dataVersion);
+    }
+
+    static BasketFingerprint of(Map<String, Integer> productCounts, String date, long dataVersion) {
+        String[] productIds = productCounts.keySet().toArray(new String[0]);
+        Arrays.sort(productIds);
+        int[] quantities = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            quantities[i] = productCounts.get(productIds[i]);
+        }
+        return new BasketFingerprint(productIds, quantities, date, dataVersion);
+    }
+
+    long getDataVersion() {
+        return dataVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BasketFingerprint)) return false;
+        BasketFingerprint other = (BasketFingerprint) o;
+        return hash == other.hash && dataVersion == other.dataVersion && date.equals(other.date)
+                && Arrays.equals(quantities, other.quantities) && Arrays.equals(productIds, other.productIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
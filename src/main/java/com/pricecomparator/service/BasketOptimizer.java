@@ -9,17 +9,41 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.LruCache;
 import com.pricecomparator.repository.MarketDataRepository;
-import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.BasketCostCurve;
+import com.pricecomparator.model.BasketLine;
+import com.pricecomparator.model.BudgetBasket;
+import com.pricecomparator.model.BasketSplit;
+import com.pricecomparator.model.EpochDays;
 import com.pricecomparator.model.Product;
+import com.pricecomparator.model.StoreLimitedBasket;
+import com.pricecomparator.model.WishListItem;
 
 public class BasketOptimizer {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Baskets handed to a worker at a time, and chunks queued per worker, for the batch API
+    private static final int BATCH_CHUNK_SIZE = 256;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    // How long a budget pick may search before settling for the best pick found
+    private static final long BUDGET_SOLVE_MILLIS = 200;
+    public static final int DEFAULT_RESULT_CACHE_ENTRIES = 1024;
     private final MarketDataRepository marketDataRepository;
+    // Results of single-basket calls by fingerprint; entries of older data versions are dropped once a newer one is seen
+    private final LruCache<BasketFingerprint, BasketSplit> results;
+    private volatile long resultsVersion;
 
     public BasketOptimizer(MarketDataRepository marketDataRepository) {
+        this(marketDataRepository, DEFAULT_RESULT_CACHE_ENTRIES);
+    }
+
+    public BasketOptimizer(MarketDataRepository marketDataRepository, int resultCacheEntries) {
         this.marketDataRepository = marketDataRepository;
+        this.results = new LruCache<>(resultCacheEntries);
     }
 
     /**
@@ -30,69 +54,134 @@ public class BasketOptimizer {
      * @param date The date for which to optimize prices
      */
     public void optimizeBasketSplit(List<String> basketProductIds, String date) {
-        // get data by the given date
-        Map<String, List<Product>> storeProducts = marketDataRepository.getProductsForDate(date);
-
-        // Maps to accumulate shopping list lines and subtotals per store
-        Map<String, List<String>> storeToItems = new HashMap<>();
-        Map<String, Double> storeToCost = new HashMap<>();
-
-        double totalOriginalPrice = 0;
-        double totalDiscountedPrice = 0;
         //[] Uses a map to count product quantities.
         Map<String, Integer> productCounts = new LinkedHashMap<>();
         for (String productId : basketProductIds) {
             productCounts.put(productId, productCounts.getOrDefault(productId, 0) + 1);
         }
-        List<String> outputLines = new ArrayList<>();
 
-        outputLines.add("Optimized Basket Split for " + date + ":\n");
+        writeBasketSplit(optimize(null, productCounts, date));
+    }
 
-        //[] For each unique product 
-        for (Map.Entry<String, Integer> entry : productCounts.entrySet()) {
-            String productId = entry.getKey();
-            int quantity = entry.getValue();
-            Product bestProduct = null;
-            String bestStore = null;
-            double bestFinalPrice = Double.MAX_VALUE;
-            int appliedDiscount = 0;
+    /**
+     * Picks the cheapest store for every product of one basket, reusing the result of an equal
+     * basket optimized earlier for the same date and data
+     *
+     * @param productCounts Product ID to quantity, in basket order
+     */
+    public BasketSplit optimize(String basketId, Map<String, Integer> productCounts, String date) {
+        // Read before the prices, so a result is never filed under a newer version than its data
+        long dataVersion = marketDataRepository.getDataVersion();
+        // Discounted prices of every product in every store on this date, built once and cached
+        EffectivePriceMatrix prices = marketDataRepository.getEffectivePriceMatrix(date);
+        return optimizeCached(basketId, productCounts, date, prices, dataVersion);
+    }
 
-            //[] Search all stores for the best price (with discount) 
-            for (String store : storeProducts.keySet()) {
-                Product product = marketDataRepository.getProduct(store, productId);
-                if (product == null) continue;
+    /**
+     * The cache of basket results, for sizing it from its hit rate
+     */
+    public LruCache<?, BasketSplit> getResultCache() {
+        return results;
+    }
 
-                double price = product.getPrice();
-                Discount discount = marketDataRepository.getActiveDiscount(store, productId, date);
-                int discountPercent = discount != null ? discount.getDiscountPercent() : 0;
+    private BasketSplit optimizeCached(String basketId, Map<String, Integer> productCounts, String date,
+                                       EffectivePriceMatrix prices, long dataVersion) {
+        dropOutdatedResults(dataVersion);
+        long generation = results.generation();
+        BasketFingerprint key = BasketFingerprint.of(productCounts, date, dataVersion);
+        BasketSplit split = results.get(key);
+        if (split == null) {
+            split = optimize(null, productCounts, date, prices);
+            results.put(key, split, generation);
+        }
+        return inBasketOrder(split, basketId, productCounts);
+    }
 
-                double discountedPrice = price * (1 - discountPercent / 100.0);
+    private void dropOutdatedResults(long dataVersion) {
+        // Checked without the lock first, as the version only changes when a file is ingested
+        if (dataVersion <= resultsVersion) return;
+        synchronized (this) {
+            if (dataVersion <= resultsVersion) return;
+            results.invalidate(key -> key.getDataVersion() < dataVersion);
+            resultsVersion = dataVersion;
+        }
+    }
 
-                //[] Track the best (lowest) price and store
-                if (discountedPrice < bestFinalPrice) {
-                    bestProduct = product;
-                    bestStore = store;
-                    bestFinalPrice = discountedPrice;
-                    appliedDiscount = discountPercent;
-                }
+    /**
+     * Relabels a cached result and, if the basket lists its products in another order, puts its lines in that order
+     */
+    private static BasketSplit inBasketOrder(BasketSplit split, String basketId, Map<String, Integer> productCounts) {
+        List<BasketLine> lines = split.getLines();
+        List<String> missing = split.getMissingProductIds();
+        int line = 0;
+        int missed = 0;
+        boolean ordered = true;
+        for (String productId : productCounts.keySet()) {
+            if (line < lines.size() && lines.get(line).getProductId().equals(productId)) {
+                line++;
+            } else if (missed < missing.size() && missing.get(missed).equals(productId)) {
+                missed++;
+            } else {
+                ordered = false;
+                break;
             }
+        }
+        if (ordered) return split.withBasketId(basketId);
 
-            if (bestProduct != null) {
-                // Format the shopping list line for this product and store
-                String line = "- " + bestProduct.getName() + (quantity > 1 ? " x" + quantity : "") + ": " + String.format("%.2f", bestFinalPrice * quantity)
-                        + " RON" + (appliedDiscount > 0 ? " (-" + appliedDiscount + "%)" : "");
-
-                // Add to the store's shopping list and subtotal
-                storeToItems.computeIfAbsent(bestStore, k -> new ArrayList<>()).add(line);
-                storeToCost.put(bestStore, storeToCost.getOrDefault(bestStore, 0.0) + bestFinalPrice * quantity);
-
-                //[] Accumulate totals for original and discounted prices
-                totalOriginalPrice += bestProduct.getPrice() * quantity;
-                totalDiscountedPrice += bestFinalPrice * quantity;
+        Map<String, BasketLine> lineByProductId = new HashMap<>();
+        for (BasketLine basketLine : lines) lineByProductId.put(basketLine.getProductId(), basketLine);
+        List<BasketLine> orderedLines = new ArrayList<>(lines.size());
+        List<String> orderedMissing = new ArrayList<>(missing.size());
+        for (String productId : productCounts.keySet()) {
+            BasketLine basketLine = lineByProductId.get(productId);
+            if (basketLine != null) {
+                orderedLines.add(basketLine);
             } else {
-                outputLines.add("Product " + productId + " not found in any store.\n");
+                orderedMissing.add(productId);
             }
         }
+        return new BasketSplit(basketId, split.getDate(), orderedLines, orderedMissing,
+                split.getOriginalTotal(), split.getOptimizedTotal());
+    }
+
+    /**
+     * Starts an empty basket that stays optimized for the date while it is edited
+     */
+    public OptimizedBasket openBasket(String date) {
+        return new OptimizedBasket(marketDataRepository, date);
+    }
+
+    /**
+     * Starts a basket holding the given quantities, kept optimized for the date while it is edited
+     */
+    public OptimizedBasket openBasket(Map<String, Integer> productCounts, String date) {
+        OptimizedBasket basket = openBasket(date);
+        productCounts.forEach(basket::add);
+        return basket;
+    }
+
+    /**
+     * Writes the shopping list of each store and the totals to the basket output file
+     */
+    public void writeBasketSplit(BasketSplit split) {
+        String date = split.getDate();
+        List<String> outputLines = new ArrayList<>();
+        outputLines.add("Optimized Basket Split for " + date + ":\n");
+        for (String productId : split.getMissingProductIds()) {
+            outputLines.add("Product " + productId + " not found in any store.\n");
+        }
+
+        // Maps to accumulate shopping list lines and subtotals per store
+        Map<String, List<String>> storeToItems = new HashMap<>();
+        Map<String, Double> storeToCost = new HashMap<>();
+        for (BasketLine basketLine : split.getLines()) {
+            int quantity = basketLine.getQuantity();
+            String line = "- " + basketLine.getProductName() + (quantity > 1 ? " x" + quantity : "") + ": " + String.format("%.2f", basketLine.getTotal())
+                    + " RON" + (basketLine.getDiscountPercent() > 0 ? " (-" + basketLine.getDiscountPercent() + "%)" : "");
+
+            storeToItems.computeIfAbsent(basketLine.getStore(), k -> new ArrayList<>()).add(line);
+            storeToCost.put(basketLine.getStore(), storeToCost.getOrDefault(basketLine.getStore(), 0.0) + basketLine.getTotal());
+        }
 
         //[] Output the shopping list
         for (String store : storeToItems.keySet()) {
@@ -102,16 +191,385 @@ public class BasketOptimizer {
         }
 
         // Output [] totals and savings
-        double savings = totalOriginalPrice - totalDiscountedPrice;
-        outputLines.add("Original total (no discounts): " + String.format("%.2f", totalOriginalPrice) + " RON");
-        outputLines.add("Optimized total: " + String.format("%.2f", totalDiscountedPrice) + " RON");
-        outputLines.add("Total money saved: " + String.format("%.2f", savings) + " RON");
+        outputLines.add("Original total (no discounts): " + String.format("%.2f", split.getOriginalTotal()) + " RON");
+        outputLines.add("Optimized total: " + String.format("%.2f", split.getOptimizedTotal()) + " RON");
+        outputLines.add("Total money saved: " + String.format("%.2f", split.getSavings()) + " RON");
 
         // Write the result to a file and print the location
         writeOutputToFile("output/optimized_basket_" + date + ".txt", outputLines);
         System.out.println("Result saved to: output/optimized_basket_" + date + ".txt");
     }
 
+    /**
+     * Optimizes many baskets in parallel against one price matrix and returns the results by basket ID
+     *
+     * @param baskets Basket ID to product quantities
+     * @param parallelism Number of worker threads
+     */
+    public Map<String, BasketSplit> optimizeBaskets(Map<String, Map<String, Integer>> baskets, String date, int parallelism) {
+        Map<String, BasketSplit> results = new HashMap<>();
+        optimizeBaskets(baskets.entrySet().iterator(), date, parallelism, split -> results.put(split.getBasketId(), split));
+        return results;
+    }
+
+    /**
+     * Optimizes a stream of baskets in parallel against one price matrix, without console or file output.
+     * <p>
+     * Baskets are read from the iterator in chunks, and only a few chunks per worker are in flight,
+     * so memory stays bounded however many baskets there are. The sink is called on the calling
+     * thread as chunks complete, so it needs no locking, but results do not keep the input order.
+     * Batch baskets bypass the result cache: they are mostly one-off, and would only contend for
+     * its lock and evict the repeated interactive baskets it is sized for.
+     *
+     * @param baskets Basket ID to product quantities, read once on the calling thread
+     * @param parallelism Number of worker threads
+     * @param sink Receives every result
+     * @return The number of baskets optimized
+     */
+    public long optimizeBaskets(Iterator<Map.Entry<String, Map<String, Integer>>> baskets, String date,
+                                int parallelism, Consumer<BasketSplit> sink) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+
+        // Every basket is priced against the same snapshot, even if files are ingested meanwhile
+        EffectivePriceMatrix prices = marketDataRepository.getEffectivePriceMatrix(date);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        CompletionService<List<BasketSplit>> completed = new ExecutorCompletionService<>(pool);
+        int maxInFlight = parallelism * CHUNKS_IN_FLIGHT_PER_THREAD;
+        int inFlight = 0;
+        long count = 0;
+
+        try {
+            while (baskets.hasNext() || inFlight > 0) {
+                while (inFlight < maxInFlight && baskets.hasNext()) {
+                    List<Map.Entry<String, Map<String, Integer>>> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+                    while (chunk.size() < BATCH_CHUNK_SIZE && baskets.hasNext()) {
+                        chunk.add(baskets.next());
+                    }
+                    completed.submit(() -> {
+                        List<BasketSplit> splits = new ArrayList<>(chunk.size());
+                        for (Map.Entry<String, Map<String, Integer>> basket : chunk) {
+                            splits.add(optimize(basket.getKey(), basket.getValue(), date, prices));
+                        }
+                        return splits;
+                    });
+                    inFlight++;
+                }
+
+                List<BasketSplit> splits = completed.take().get();
+                inFlight--;
+                for (BasketSplit split : splits) {
+                    sink.accept(split);
+                    count++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while optimizing baskets", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to optimize baskets", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Picks the cheapest store for every product of one basket; does no I/O
+     *
+     * @param productCounts Product ID to quantity, in basket order
+     */
+    public static BasketSplit optimize(String basketId, Map<String, Integer> productCounts, String date,
+                                       EffectivePriceMatrix prices) {
+        List<BasketLine> lines = new ArrayList<>(productCounts.size());
+        List<String> missingProductIds = new ArrayList<>();
+        double totalOriginalPrice = 0;
+        double totalDiscountedPrice = 0;
+
+        //[] For each unique product
+        for (Map.Entry<String, Integer> entry : productCounts.entrySet()) {
+            String productId = entry.getKey();
+            int quantity = entry.getValue();
+
+            //[] Look up the store with the best price (with discount)
+            int row = prices.rowOf(productId);
+            int store = row != EffectivePriceMatrix.NOT_FOUND ? prices.getBestStore(row) : EffectivePriceMatrix.NOT_FOUND;
+            if (store == EffectivePriceMatrix.NOT_FOUND) {
+                missingProductIds.add(productId);
+                continue;
+            }
+
+            Product bestProduct = prices.getProduct(row, store);
+            double bestFinalPrice = prices.getEffectivePrice(row, store);
+            lines.add(new BasketLine(productId, bestProduct.getName(), prices.getStore(store), quantity,
+                    bestProduct.getPrice(), bestFinalPrice, prices.getDiscountPercent(row, store)));
+
+            //[] Accumulate totals for original and discounted prices
+            totalOriginalPrice += bestProduct.getPrice() * quantity;
+            totalDiscountedPrice += bestFinalPrice * quantity;
+        }
+
+        return new BasketSplit(basketId, date, lines, missingProductIds, totalOriginalPrice, totalDiscountedPrice);
+    }
+
+    /**
+     * Finds the cheapest plan visiting at most N stores, for every N from 1 to maxStores.
+     * Each store visited adds visitCost. Products no store sells are left out of every plan.
+     *
+     * @param productCounts Product ID to quantity, in basket order
+     * @return One plan per N, skipping the N for which no set of stores sells every product
+     */
+    public List<StoreLimitedBasket> optimizeWithStoreLimit(Map<String, Integer> productCounts, String date,
+                                                           int maxStores, double visitCost) {
+        return optimizeWithStoreLimit(productCounts, date, marketDataRepository.getEffectivePriceMatrix(date), maxStores, visitCost);
+    }
+
+    public static List<StoreLimitedBasket> optimizeWithStoreLimit(Map<String, Integer> productCounts, String date,
+                                                                  EffectivePriceMatrix prices, int maxStores, double visitCost) {
+        if (maxStores < 1) {
+            throw new IllegalArgumentException("Store limit must be at least 1, got " + maxStores);
+        }
+
+        List<String> productIds = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        List<String> missingProductIds = new ArrayList<>();
+        for (String productId : productCounts.keySet()) {
+            int row = prices.rowOf(productId);
+            if (row != EffectivePriceMatrix.NOT_FOUND) {
+                productIds.add(productId);
+                rows.add(row);
+            } else {
+                missingProductIds.add(productId);
+            }
+        }
+
+        // Only stores selling something from the basket are worth visiting
+        List<Integer> candidates = new ArrayList<>();
+        for (int store = 0; store < prices.getStoreCount(); store++) {
+            for (int row : rows) {
+                if (prices.getProduct(row, store) != null) {
+                    candidates.add(store);
+                    break;
+                }
+            }
+        }
+
+        double[][] costs = new double[rows.size()][candidates.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            int quantity = productCounts.get(productIds.get(i));
+            for (int c = 0; c < candidates.size(); c++) {
+                costs[i][c] = prices.getProduct(rows.get(i), candidates.get(c)) != null
+                        ? prices.getEffectivePrice(rows.get(i), candidates.get(c)) * quantity
+                        : Double.POSITIVE_INFINITY;
+            }
+        }
+
+        StoreSubsetSearch search = new StoreSubsetSearch(costs, candidates.size(), maxStores);
+        int[][] bestSubsets = search.run();
+
+        List<StoreLimitedBasket> plans = new ArrayList<>();
+        int[] bestSoFar = rows.isEmpty() ? new int[0] : null;
+        double bestTotal = rows.isEmpty() ? 0 : Double.POSITIVE_INFINITY;
+        for (int limit = 1; limit <= maxStores; limit++) {
+            // Visiting fewer stores than allowed is fine when the visit cost outweighs the savings
+            if (limit < bestSubsets.length && bestSubsets[limit] != null
+                    && search.getCost(limit) + visitCost * limit < bestTotal) {
+                bestSoFar = bestSubsets[limit];
+                bestTotal = search.getCost(limit) + visitCost * limit;
+            }
+            if (bestSoFar == null) continue;
+
+            List<Integer> stores = new ArrayList<>();
+            for (int c : bestSoFar) stores.add(candidates.get(c));
+            Collections.sort(stores);
+            plans.add(planFor(limit, stores, productCounts, productIds, rows, missingProductIds, date, prices, visitCost, search.isExact()));
+        }
+        return plans;
+    }
+
+    /**
+     * Prints the plan for each store limit and what every extra store saves
+     */
+    public void showStoreLimitedPlans(Map<String, Integer> productCounts, String date, int maxStores, double visitCost) {
+        List<StoreLimitedBasket> plans = optimizeWithStoreLimit(productCounts, date, maxStores, visitCost);
+        if (plans.isEmpty()) {
+            System.out.println("No combination of up to " + maxStores + " store(s) sells every product on " + date);
+            return;
+        }
+
+        System.out.println("Basket plans for " + date + " with a visit cost of " + String.format("%.2f", visitCost) + " RON per store:");
+        StoreLimitedBasket previous = null;
+        for (StoreLimitedBasket plan : plans) {
+            String saved = previous != null
+                    ? " (saves " + String.format("%.2f", previous.getTotalCost() - plan.getTotalCost()) + " RON more)"
+                    : "";
+            System.out.println(plan + saved);
+            previous = plan;
+        }
+    }
+
+    private static StoreLimitedBasket planFor(int limit, List<Integer> stores, Map<String, Integer> productCounts,
+                                              List<String> productIds, List<Integer> rows, List<String> missingProductIds,
+                                              String date, EffectivePriceMatrix prices, double visitCost, boolean exact) {
+        List<BasketLine> lines = new ArrayList<>();
+        double totalOriginalPrice = 0;
+        double totalDiscountedPrice = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            int bestStore = EffectivePriceMatrix.NOT_FOUND;
+            for (int store : stores) {
+                if (prices.getProduct(row, store) != null && (bestStore == EffectivePriceMatrix.NOT_FOUND
+                        || prices.getEffectivePrice(row, store) < prices.getEffectivePrice(row, bestStore))) {
+                    bestStore = store;
+                }
+            }
+
+            Product product = prices.getProduct(row, bestStore);
+            int quantity = productCounts.get(productIds.get(i));
+            double price = prices.getEffectivePrice(row, bestStore);
+            lines.add(new BasketLine(productIds.get(i), product.getName(), prices.getStore(bestStore), quantity,
+                    product.getPrice(), price, prices.getDiscountPercent(row, bestStore)));
+            totalOriginalPrice += product.getPrice() * quantity;
+            totalDiscountedPrice += price * quantity;
+        }
+
+        List<String> storeNames = new ArrayList<>();
+        for (int store : stores) storeNames.add(prices.getStore(store));
+        BasketSplit split = new BasketSplit(null, date, lines, missingProductIds, totalOriginalPrice, totalDiscountedPrice);
+        return new StoreLimitedBasket(limit, storeNames, split, visitCost * stores.size(), exact);
+    }
+
+    /**
+     * Picks the wish list items worth the most priority that fit a budget, each bought where
+     * it is cheapest after discounts
+     *
+     * @param budget Budget in RON
+     */
+    public BudgetBasket optimizeWithinBudget(List<WishListItem> wishList, String date, double budget) {
+        return optimizeWithinBudget(wishList, date, marketDataRepository.getEffectivePriceMatrix(date), budget, BUDGET_SOLVE_MILLIS);
+    }
+
+    public static BudgetBasket optimizeWithinBudget(List<WishListItem> wishList, String date, EffectivePriceMatrix prices,
+                                                    double budget, long timeLimitMillis) {
+        Map<String, Integer> productCounts = new LinkedHashMap<>();
+        Map<String, Integer> priorities = new HashMap<>();
+        for (WishListItem item : wishList) {
+            productCounts.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            priorities.merge(item.getProductId(), item.getPriority(), Integer::sum);
+        }
+        BasketSplit everything = optimize(null, productCounts, date, prices);
+
+        // Work in bani from the integer prices so the budget check is exact
+        List<BasketLine> lines = everything.getLines();
+        long[] costs = new long[lines.size()];
+        long[] values = new long[lines.size()];
+        long priorityTotal = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            BasketLine line = lines.get(i);
+            int row = prices.rowOf(line.getProductId());
+            costs[i] = prices.getEffectiveTotalBani(row, prices.getBestStore(row), line.getQuantity());
+            values[i] = priorities.get(line.getProductId());
+            priorityTotal += values[i];
+        }
+
+        long budgetBani = Math.round(budget * 100);
+        BudgetKnapsack knapsack = new BudgetKnapsack(costs, values, budgetBani,
+                TimeUnit.MILLISECONDS.toNanos(timeLimitMillis));
+        boolean[] picked = knapsack.solve();
+
+        List<BasketLine> pickedLines = new ArrayList<>();
+        List<String> skippedProductIds = new ArrayList<>();
+        double totalOriginalPrice = 0;
+        long spentBani = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            BasketLine line = lines.get(i);
+            if (picked[i]) {
+                pickedLines.add(line);
+                totalOriginalPrice += line.getOriginalUnitPrice() * line.getQuantity();
+                spentBani += costs[i];
+            } else {
+                skippedProductIds.add(line.getProductId());
+            }
+        }
+
+        BasketSplit split = new BasketSplit(null, date, pickedLines, everything.getMissingProductIds(),
+                totalOriginalPrice, spentBani / 100.0);
+        return new BudgetBasket(budget, split, skippedProductIds, knapsack.getValue(), priorityTotal,
+                knapsack.isOptimal(), budgetBani - spentBani);
+    }
+
+    /**
+     * Prints which wish list items fit the budget and which were left out
+     */
+    public void showBudgetBasket(List<WishListItem> wishList, String date, double budget) {
+        BudgetBasket result = optimizeWithinBudget(wishList, date, budget);
+        BasketSplit split = result.getSplit();
+
+        System.out.println("Best basket within " + String.format("%.2f", budget) + " RON on " + date
+                + (result.isOptimal() ? ":" : " (best found within the time limit):"));
+        for (BasketLine line : split.getLines()) {
+            System.out.println(" - " + line.getProductName() + " (" + line.getProductId() + ") x" + line.getQuantity()
+                    + " from " + capitalize(line.getStore()) + ": " + String.format("%.2f", line.getTotal()) + " RON");
+        }
+        if (!result.getSkippedProductIds().isEmpty()) {
+            System.out.println("Left out to stay within budget: " + String.join(", ", result.getSkippedProductIds()));
+        }
+        if (!split.getMissingProductIds().isEmpty()) {
+            System.out.println("Not sold on " + date + ": " + String.join(", ", split.getMissingProductIds()));
+        }
+        System.out.println("Priority covered: " + result.getPriorityCovered() + " of " + result.getPriorityTotal()
+                + ", spent " + String.format("%.2f", split.getOptimizedTotal()) + " RON, "
+                + String.format("%.2f", result.getRemainingBudget()) + " RON left");
+    }
+
+    /**
+     * Works out the optimized basket cost on every day from fromDate to toDate, inclusive.
+     * <p>
+     * The window is cut where any store switches to a newer file; each run of days in between
+     * is priced with one sweep over its discount validity intervals instead of one optimization per day.
+     */
+    public BasketCostCurve optimizeAcrossDates(Map<String, Integer> productCounts, String fromDate, String toDate) {
+        int firstDay = EpochDays.parse(fromDate);
+        int lastDay = EpochDays.parse(toDate);
+        if (firstDay == EpochDays.NONE || lastDay == EpochDays.NONE || lastDay < firstDay) {
+            throw new IllegalArgumentException("Invalid date window " + fromDate + " to " + toDate);
+        }
+
+        List<Integer> runStarts = new ArrayList<>();
+        runStarts.add(firstDay);
+        for (String date : marketDataRepository.getSnapshotDatesBetween(fromDate, toDate)) {
+            runStarts.add(EpochDays.parse(date));
+        }
+
+        BasketCostSweep sweep = new BasketCostSweep(productCounts);
+        double[] totals = new double[lastDay - firstDay + 1];
+        int[] missingCounts = new int[totals.length];
+        for (int r = 0; r < runStarts.size(); r++) {
+            int runStart = runStarts.get(r);
+            int runEnd = r + 1 < runStarts.size() ? runStarts.get(r + 1) - 1 : lastDay;
+            String date = EpochDays.format(runStart);
+            sweep.sweep(marketDataRepository.getProductsForDate(date), marketDataRepository.getDiscountsForDate(date),
+                    runStart, runEnd, firstDay, totals, missingCounts);
+        }
+        return new BasketCostCurve(fromDate, totals, missingCounts);
+    }
+
+    /**
+     * Prints the basket cost for each day of the window and the cheapest day to shop
+     */
+    public void showCheapestDay(Map<String, Integer> productCounts, String fromDate, String toDate) {
+        BasketCostCurve curve = optimizeAcrossDates(productCounts, fromDate, toDate);
+
+        System.out.println("Basket cost from " + fromDate + " to " + toDate + ":");
+        for (int day = 0; day < curve.getDayCount(); day++) {
+            String missing = curve.getMissingCount(day) > 0 ? " (" + curve.getMissingCount(day) + " product(s) not sold)" : "";
+            System.out.println(" " + curve.getDate(day) + ": " + String.format("%.2f", curve.getTotal(day)) + " RON" + missing);
+        }
+        System.out.println("Cheapest day to shop: " + curve.getCheapestDate() + " at "
+                + String.format("%.2f", curve.getCheapestTotal()) + " RON");
+    }
+
     private static void writeOutputToFile(String filePath, List<String> lines) {
         try {
             new File("output").mkdir(); // create output folder if missing
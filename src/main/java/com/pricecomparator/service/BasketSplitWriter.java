@@ -0,0 +1,54 @@
+package com.pricecomparator.service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import com.pricecomparator.model.BasketLine;
+import com.pricecomparator.model.BasketSplit;
+
+/**
+ * Streams basket results to a semicolon separated file, one row per product, as they arrive.
+ * <p>
+ * Meant as the sink of BasketOptimizer.optimizeBaskets, so results are written out instead of
+ * collected. Products no store sells are written with an empty store and zero prices.
+ */
+public class BasketSplitWriter implements Consumer<BasketSplit>, Closeable {
+    public static final String HEADER = "basket_id;date;product_id;store;quantity;unit_price;discount_percent;line_total";
+
+    private final BufferedWriter writer;
+
+    public BasketSplitWriter(File file) throws IOException {
+        this(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    public BasketSplitWriter(Writer writer) throws IOException {
+        this.writer = new BufferedWriter(writer);
+        this.writer.write(HEADER);
+        this.writer.newLine();
+    }
+
+    @Override
+    public void accept(BasketSplit split) {
+        try {
+            for (BasketLine line : split.getLines()) {
+                writer.write(String.format(Locale.ROOT, "%s;%s;%s;%s;%d;%.2f;%d;%.2f", split.getBasketId(), split.getDate(),
+                        line.getProductId(), line.getStore(), line.getQuantity(), line.getUnitPrice(),
+                        line.getDiscountPercent(), line.getTotal()));
+                writer.newLine();
+            }
+            for (String productId : split.getMissingProductIds()) {
+                writer.write(split.getBasketId() + ";" + split.getDate() + ";" + productId + ";;0;0.00;0;0.00");
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write basket " + split.getBasketId(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,61 +1,55 @@
 package com.pricecomparator.service;
 
-import java.util.*;
+import com.pricecomparator.repository.DiscountRanking;
 import com.pricecomparator.repository.MarketDataRepository;
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.DiscountPage;
 
 public class BestDiscounts {
+    public static final String ALL_STORES = "All stores";
+
     private final MarketDataRepository marketDataRepository;
 
     public BestDiscounts(MarketDataRepository marketDataRepository) {
         this.marketDataRepository = marketDataRepository;
     }
 
+    /**
+     * Gets a page of the highest discounts active on a date, from the ranking cached for that date
+     *
+     * @param store A store name, or ALL_STORES
+     * @param offset Rank of the first discount to return, 0 being the best
+     * @param limit Maximum number of discounts to return
+     */
+    public DiscountPage getBestDiscounts(String store, String date, int offset, int limit) {
+        DiscountRanking ranking = marketDataRepository.getDiscountRanking(date);
+        if (store.equals(ALL_STORES)) {
+            return new DiscountPage(store, date, offset, ranking.getTopOfAllStores(offset, limit), ranking.getCountOfAllStores());
+        }
+        return new DiscountPage(store, date, offset, ranking.getTop(store, offset, limit), ranking.getCount(store));
+    }
+
     public void showBestDiscounts(String store, String date, int numberOfOffers) {
         // Normalize store name for consistency
-        if (!store.equals("All stores")) {
+        if (!store.equals(ALL_STORES)) {
             store = store.substring(0, 1).toUpperCase() + store.substring(1).toLowerCase();
         }
-        
-        //[] Get the discounts
-        Map<String, List<Discount>> storeDiscounts = marketDataRepository.getValidDiscountsForDate(date);
-        
-        if (store.equals("All stores")) {
-            // /* Handle all stores - merge all discounts
-            List<Discount> allDiscounts = new ArrayList<>();
-            storeDiscounts.forEach((storeName, discounts) -> {
-                allDiscounts.addAll(discounts);
-            });
-            
-            if (allDiscounts.isEmpty()) {
-                System.out.println("No discounts found for any store on " + date);
-                return;
-            }
-            
-            //[] Sort discounts by discount percentage in descending order
-            allDiscounts.sort((d1, d2) -> Integer.compare(d2.getDiscountPercent(), d1.getDiscountPercent()));
-            
-            System.out.println("Top " + numberOfOffers + " discounts across all stores on " + date + ":");
-            for (int i = 0; i < Math.min(numberOfOffers, allDiscounts.size()); i++) {
-                System.out.println(allDiscounts.get(i));
-            }
-        } else {
-            // Handle specific store
-            List<Discount> discounts = storeDiscounts.get(store);
-            
-            if (discounts == null || discounts.isEmpty()) {
-                System.out.println("No discounts found for " + store + " on " + date);
-                return;
-            }
-            
-            // Sort discounts by discount percentage in descending order
-            discounts.sort((d1, d2) -> Integer.compare(d2.getDiscountPercent(), d1.getDiscountPercent()));
-            
-            //[] Output the result
-            System.out.println("Top " + numberOfOffers + " discounts for " + store + " on " + date + ":");
-            for (int i = 0; i < Math.min(numberOfOffers, discounts.size()); i++) {
-                System.out.println(discounts.get(i));
-            }
+
+        //[] Get the discounts, already ranked by percentage in descending order
+        DiscountPage page = getBestDiscounts(store, date, 0, numberOfOffers);
+
+        if (page.getTotalCount() == 0) {
+            System.out.println(store.equals(ALL_STORES)
+                    ? "No discounts found for any store on " + date
+                    : "No discounts found for " + store + " on " + date);
+            return;
+        }
+
+        //[] Output the result
+        System.out.println("Top " + numberOfOffers + " discounts " + (store.equals(ALL_STORES) ? "across all stores" : "for " + store)
+                + " on " + date + ":");
+        for (Discount discount : page.getDiscounts()) {
+            System.out.println(discount);
         }
     }
 }
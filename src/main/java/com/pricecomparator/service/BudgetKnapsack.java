@@ -0,0 +1,126 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+
+/**
+ * Picks the items with the highest total value whose cost in bani fits a budget.
+ * <p>
+ * Items are tried in order of value per ban, starting from the greedy pick, and a branch is cut
+ * when even filling the rest of the budget with fractions of the best remaining items could not
+ * beat the best pick found. If the time limit is hit first, the best pick so far is kept.
+ */
+class BudgetKnapsack {
+    // How many branches to walk between clock reads
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+
+    private final long[] costs;
+    private final long[] values;
+    private final long budget;
+    private final long deadline;
+    private final int[] order; // items that fit the budget on their own, best value per ban first
+    private final boolean[] taken;
+    private boolean[] best;
+    private long bestValue = -1;
+    private long nodes;
+    private boolean timedOut;
+
+    /**
+     * @param costs  Cost of each item in bani
+     * @param values Value of each item
+     */
+    BudgetKnapsack(long[] costs, long[] values, long budget, long timeLimitNanos) {
+        this.costs = costs;
+        this.values = values;
+        this.budget = budget;
+        this.deadline = System.nanoTime() + timeLimitNanos;
+        this.order = byDensity(costs, values, budget);
+        this.taken = new boolean[costs.length];
+    }
+
+    /**
+     * Runs the search
+     *
+     * @return Which items to buy
+     */
+    boolean[] solve() {
+        greedy();
+        branch(0, 0, 0);
+        return best;
+    }
+
+    long getValue() {
+        return bestValue;
+    }
+
+    /**
+     * @return Whether the search finished, so the pick is the best possible
+     */
+    boolean isOptimal() {
+        return !timedOut;
+    }
+
+    private void greedy() {
+        boolean[] pick = new boolean[costs.length];
+        long spent = 0;
+        long value = 0;
+        for (int item : order) {
+            if (spent + costs[item] <= budget) {
+                pick[item] = true;
+                spent += costs[item];
+                value += values[item];
+            }
+        }
+        best = pick;
+        bestValue = value;
+    }
+
+    private void branch(int position, long spent, long value) {
+        if (value > bestValue) {
+            bestValue = value;
+            best = taken.clone();
+        }
+        if (position == order.length || timedOut) return;
+        if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+            return;
+        }
+        if (upperBound(position, spent, value) <= bestValue) return;
+
+        int item = order[position];
+        if (spent + costs[item] <= budget) {
+            taken[item] = true;
+            branch(position + 1, spent + costs[item], value + values[item]);
+            taken[item] = false;
+        }
+        branch(position + 1, spent, value);
+    }
+
+    /**
+     * The value of filling the remaining budget greedily, taking a fraction of the first item that does not fit
+     */
+    private long upperBound(int position, long spent, long value) {
+        long room = budget - spent;
+        double bound = value;
+        for (int p = position; p < order.length; p++) {
+            int item = order[p];
+            if (costs[item] <= room) {
+                room -= costs[item];
+                bound += values[item];
+            } else {
+                bound += (double) values[item] * room / costs[item];
+                break;
+            }
+        }
+        return (long) Math.floor(bound);
+    }
+
+    private static int[] byDensity(long[] costs, long[] values, long budget) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < costs.length; i++) {
+            if (costs[i] <= budget && values[i] > 0) items.add(i);
+        }
+        // Compare value per ban by cross multiplying, so free items come first
+        items.sort((a, b) -> Double.compare((double) values[b] * costs[a], (double) values[a] * costs[b]));
+        return items.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
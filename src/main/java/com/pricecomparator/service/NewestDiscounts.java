@@ -11,36 +11,45 @@ public class NewestDiscounts {
     public NewestDiscounts(MarketDataRepository marketDataRepository) {
         this.marketDataRepository = marketDataRepository;
     }
+
+    /**
+     * Gets the discounts that started between sinceDate and todayDate and are still valid today,
+     * from the start date index of each store's discounts
+     *
+     * @param store A store name, or BestDiscounts.ALL_STORES
+     * @return Store to its new discounts, ordered by start date; unmodifiable
+     */
+    public Map<String, List<Discount>> getNewDiscounts(String store, String sinceDate, String todayDate) {
+        Map<String, List<Discount>> newDiscounts = marketDataRepository.getNewDiscounts(sinceDate, todayDate);
+        if (store.equals(BestDiscounts.ALL_STORES)) {
+            return newDiscounts;
+        }
+        List<Discount> discounts = newDiscounts.get(store);
+        return discounts != null ? Collections.singletonMap(store, discounts) : Collections.emptyMap();
+    }
     
     public void showNewestDiscounts(String store, String todayDate) {
         // Normalize store name for consistency
-        if (!store.equals("All stores")) {
+        if (!store.equals(BestDiscounts.ALL_STORES)) {
             store = store.substring(0, 1).toUpperCase() + store.substring(1).toLowerCase();
         }
-        
-        Map<String, List<Discount>> storeDiscounts = marketDataRepository.getValidDiscountsForDate(todayDate);
-        
-        storeDiscounts.forEach((storeName, discounts) -> {
-            //[] This filter keeps ONLY discounts that start exactly on todayDate
-            discounts.removeIf(discount -> !discount.getFromDate().equals(todayDate));
-        });
 
+        //[] Only discounts that start exactly on todayDate
+        Map<String, List<Discount>> storeDiscounts = getNewDiscounts(store, todayDate, todayDate);
 
         // Display for all stores option
-        if (store.equals("All stores")) {
+        if (store.equals(BestDiscounts.ALL_STORES)) {
             System.out.println("Newest discounts for all stores on " + todayDate + ":");
             storeDiscounts.forEach((storeName, discounts) -> {
-                if (!discounts.isEmpty()) {
-                    System.out.println("Store: " + storeName);
-                    for (Discount discount : discounts) {
-                        System.out.println(discount);
-                    }
+                System.out.println("Store: " + storeName);
+                for (Discount discount : discounts) {
+                    System.out.println(discount);
                 }
             });
         } else {
             // Display for each store individually
             List<Discount> discounts = storeDiscounts.get(store);
-            if (discounts == null || discounts.isEmpty()) {
+            if (discounts == null) {
                 System.out.println("No discounts found for " + store + " on " + todayDate);
                 return;
             }
@@ -0,0 +1,209 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+
+import com.pricecomparator.model.BasketSplit;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.MarketDataRepository;
+
+/**
+ * A basket being edited, kept optimized after every change.
+ * <p>
+ * Each product remembers the store it is bought from, and the totals of every store are kept
+ * up to date, so adding, removing or changing the quantity of one product only touches that
+ * product's line instead of optimizing the whole basket again. A basket opened on a repository
+ * is optimized again against the new prices on the first call after a file is ingested.
+ * Not thread-safe.
+ */
+public class OptimizedBasket {
+    // Null for a basket priced against a fixed matrix
+    private final MarketDataRepository repository;
+    private final String date;
+    private final Map<String, Integer> quantities = new LinkedHashMap<>();
+    // Matrix row of each found product; products no store sells are not in here
+    private final Map<String, Integer> rows = new HashMap<>();
+    private EffectivePriceMatrix prices;
+    // Version of the repository data the matrix was built from
+    private long dataVersion;
+    private double[] storeSubtotals;
+    private int[] storeLineCounts;
+    private int foundLineCount;
+    private double optimizedTotal;
+    private double originalTotal;
+
+    public OptimizedBasket(EffectivePriceMatrix prices, String date) {
+        this.repository = null;
+        this.date = date;
+        reprice(prices, 0);
+    }
+
+    /**
+     * Starts a basket that follows the repository's prices for the date
+     */
+    public OptimizedBasket(MarketDataRepository repository, String date) {
+        this.repository = repository;
+        this.date = date;
+        // Read before the prices, so newer data is never mistaken for the version in hand
+        long version = repository.getDataVersion();
+        reprice(repository.getEffectivePriceMatrix(date), version);
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Adds to the quantity of a product, putting it in the basket if needed
+     */
+    public void add(String productId, int quantity) {
+        setQuantity(productId, getQuantity(productId) + quantity);
+    }
+
+    /**
+     * @return Whether the product was in the basket
+     */
+    public boolean remove(String productId) {
+        if (!quantities.containsKey(productId)) return false;
+        setQuantity(productId, 0);
+        return true;
+    }
+
+    /**
+     * Sets the quantity of a product; zero or less removes it
+     */
+    public void setQuantity(String productId, int quantity) {
+        refreshIfOutdated();
+        Integer previous = quantities.get(productId);
+        if (previous != null) {
+            applyLine(productId, -previous);
+        }
+
+        if (quantity > 0) {
+            quantities.put(productId, quantity);
+            applyLine(productId, quantity);
+        } else {
+            quantities.remove(productId);
+            rows.remove(productId);
+        }
+    }
+
+    public int getQuantity(String productId) {
+        return quantities.getOrDefault(productId, 0);
+    }
+
+    /**
+     * @return The quantity of every product, in the order they were added
+     */
+    public Map<String, Integer> getQuantities() {
+        return Collections.unmodifiableMap(quantities);
+    }
+
+    /**
+     * @return The store each found product is bought from
+     */
+    public String getStoreOf(String productId) {
+        refreshIfOutdated();
+        Integer row = rows.get(productId);
+        return row != null ? prices.getStore(prices.getBestStore(row)) : null;
+    }
+
+    /**
+     * @return What is spent in each store that has something to buy
+     */
+    public Map<String, Double> getStoreSubtotals() {
+        refreshIfOutdated();
+        Map<String, Double> subtotals = new LinkedHashMap<>();
+        for (int store = 0; store < storeSubtotals.length; store++) {
+            if (storeLineCounts[store] > 0) subtotals.put(prices.getStore(store), storeSubtotals[store]);
+        }
+        return subtotals;
+    }
+
+    public double getOptimizedTotal() {
+        refreshIfOutdated();
+        return optimizedTotal;
+    }
+
+    public double getOriginalTotal() {
+        refreshIfOutdated();
+        return originalTotal;
+    }
+
+    public double getSavings() {
+        refreshIfOutdated();
+        return originalTotal - optimizedTotal;
+    }
+
+    /**
+     * @return The products no store sells on the basket's date, in the order they were added
+     */
+    public List<String> getMissingProductIds() {
+        refreshIfOutdated();
+        List<String> missing = new ArrayList<>();
+        for (String productId : quantities.keySet()) {
+            if (!rows.containsKey(productId)) missing.add(productId);
+        }
+        return missing;
+    }
+
+    /**
+     * Builds the full split of the basket as it is now
+     */
+    public BasketSplit toSplit(String basketId) {
+        refreshIfOutdated();
+        return BasketOptimizer.optimize(basketId, quantities, date, prices);
+    }
+
+    /**
+     * @return The version of the repository data the basket is priced with, or 0 for a fixed matrix
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    private void refreshIfOutdated() {
+        if (repository == null) return;
+        long version = repository.getDataVersion();
+        if (version != dataVersion) {
+            reprice(repository.getEffectivePriceMatrix(date), version);
+        }
+    }
+
+    /**
+     * Prices every line again against a new matrix; stores may have been added since the last one
+     */
+    private void reprice(EffectivePriceMatrix newPrices, long version) {
+        prices = newPrices;
+        dataVersion = version;
+        storeSubtotals = new double[prices.getStoreCount()];
+        storeLineCounts = new int[prices.getStoreCount()];
+        foundLineCount = 0;
+        optimizedTotal = 0;
+        originalTotal = 0;
+        rows.clear();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            applyLine(line.getKey(), line.getValue());
+        }
+    }
+
+    /**
+     * Adds a product's line to, or with a negative quantity takes it out of, its store's subtotal
+     */
+    private void applyLine(String productId, int quantity) {
+        int row = prices.rowOf(productId);
+        if (row == EffectivePriceMatrix.NOT_FOUND || prices.getBestStore(row) == EffectivePriceMatrix.NOT_FOUND) return;
+        rows.put(productId, row);
+
+        int store = prices.getBestStore(row);
+        Product product = prices.getProduct(row, store);
+        double lineTotal = prices.getEffectivePrice(row, store) * quantity;
+        double lineOriginal = product.getPrice() * quantity;
+        storeLineCounts[store] += Integer.signum(quantity);
+        foundLineCount += Integer.signum(quantity);
+        // Start from exact zero when a sum empties, so rounding errors do not pile up over many edits
+        storeSubtotals[store] = storeLineCounts[store] > 0 ? storeSubtotals[store] + lineTotal : 0;
+        optimizedTotal = foundLineCount > 0 ? optimizedTotal + lineTotal : 0;
+        originalTotal = foundLineCount > 0 ? originalTotal + lineOriginal : 0;
+    }
+}
@@ -2,17 +2,23 @@ package com.pricecomparator.service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
+import com.pricecomparator.model.AlertTrigger;
+import com.pricecomparator.model.Discount;
 import com.pricecomparator.model.PriceAlert;
+import com.pricecomparator.model.PriceChange;
 import com.pricecomparator.model.Product;
 import com.pricecomparator.repository.AlertRepository;
+import com.pricecomparator.repository.EffectivePriceMatrix;
 import com.pricecomparator.repository.MarketDataRepository;
-import com.pricecomparator.model.Discount;
+import com.pricecomparator.repository.PriceChangeListener;
 
 public class PriceAlertService {
     private final AlertRepository alertRepository;
     private final MarketDataRepository marketDataRepository;
+    // Built on first check, dropped whenever alerts change
+    private AlertIndex alertIndex;
 
     public PriceAlertService(AlertRepository alertRepository, MarketDataRepository marketDataRepository) {
         this.alertRepository = alertRepository;
@@ -22,6 +28,7 @@ public class PriceAlertService {
     public void createAlert(String productId, String productName, double targetPrice, String userId) {
         PriceAlert alert = new PriceAlert(productId, productName, targetPrice, userId);
         alertRepository.addAlert(alert);
+        alertsChanged();
     }
 
     public List<PriceAlert> getActiveAlerts() {
@@ -30,59 +37,98 @@ public class PriceAlertService {
 
     public List<PriceAlert> checkAlerts(String date) {
         List<PriceAlert> triggeredAlerts = new ArrayList<>();
-        // Getting the products for the current day
-        Map<String, List<Product>> storeProducts = marketDataRepository.getProductsForDate(date);
-
-        
-        for (PriceAlert alert : alertRepository.getActiveAlerts()) {
-            // For each active alert I am searching for the best price I can find
-            double bestPrice = findBestPrice(alert.getProductId(), storeProducts, date);
-            
-            if (bestPrice <= alert.getTargetPrice()) {
-                triggeredAlerts.add(alert);
-                System.out.println("PRICE ALERT: " + alert.getProductName() + 
-                                  " is now available at " + bestPrice + 
-                                  " (target: " + alert.getTargetPrice() + ")");
-            }
-        }
+        // Best discounted price of every product for the day, built once and cached
+        EffectivePriceMatrix prices = marketDataRepository.getEffectivePriceMatrix(date);
+
+        getAlertIndex().forEachTriggered(prices, (alert, bestPrice) -> {
+            triggeredAlerts.add(alert);
+            System.out.println("PRICE ALERT: " + alert.getProductName() +
+                              " is now available at " + bestPrice +
+                              " (target: " + alert.getTargetPrice() + ")");
+        });
         return triggeredAlerts;
     }
 
-    private double findBestPrice(String productId, Map<String, List<Product>> storeProducts, String date) {
-        double bestPrice = Double.MAX_VALUE;
-        
-        for (String store : storeProducts.keySet()) {
-            Product product = storeProducts.get(store).stream()
-                .filter(p -> p.getId().equals(productId))
-                .findFirst()
-                .orElse(null);
-                
-            if (product != null) {
-                double price = product.getPrice();
-                
-                // Apply any active discounts
-                Discount discount = marketDataRepository.getActiveDiscount(store, productId, date);
-                if (discount != null) {
-                    price = price * (1 - discount.getDiscountPercent() / 100.0);
-                }
-                
-                // Update best price if this one is lower
-                if (price < bestPrice) {
-                    bestPrice = price;
-                    //System.out.println("Found price " + price + " for " + product.getName() + " at " + store);
+    /**
+     * Finds the alerts triggered on a date without printing them
+     */
+    public List<PriceAlert> findTriggeredAlerts(String date) {
+        return getAlertIndex().findTriggered(marketDataRepository.getEffectivePriceMatrix(date));
+    }
+
+    /**
+     * Publishes the alerts that each ingested file triggers, as soon as it is ingested, and those
+     * triggered by discounts starting when the repository's today moves forward.
+     * <p>
+     * Only the products whose price changed are looked at, and an alert is published
+     * when the change brings the product's best price across stores down to its target from
+     * above it. Alerts already triggered before the file are not published again.
+     *
+     * @return The listener registered with the repository, to remove it again
+     */
+    public PriceChangeListener watchPriceChanges(AlertSink sink) {
+        PriceChangeListener listener = changes -> publishTriggeredAlerts(changes, sink);
+        marketDataRepository.addPriceChangeListener(listener);
+        return listener;
+    }
+
+    private void publishTriggeredAlerts(List<PriceChange> changes, AlertSink sink) {
+        AlertIndex index = getAlertIndex();
+        if (index.getAlertCount() == 0) return;
+        Set<String> stores = marketDataRepository.getStores();
+
+        for (PriceChange change : changes) {
+            // Prices of the other stores are the same before and after the change
+            double othersBest = Double.NaN;
+            String othersBestStore = null;
+            for (String store : stores) {
+                if (store.equals(change.getStore())) continue;
+                double price = effectivePrice(store, change.getProductId(), change.getDate());
+                if (!Double.isNaN(price) && !(price >= othersBest)) {
+                    othersBest = price;
+                    othersBestStore = store;
                 }
             }
+
+            double oldBest = min(othersBest, change.getOldPrice());
+            boolean changedStoreBest = !Double.isNaN(change.getNewPrice()) && !(change.getNewPrice() >= othersBest);
+            double newBest = changedStoreBest ? change.getNewPrice() : othersBest;
+            String bestStore = changedStoreBest ? change.getStore() : othersBestStore;
+            index.forEachCrossed(change.getProductId(), oldBest, newBest,
+                    alert -> sink.publish(new AlertTrigger(alert, bestStore, newBest, change.getDate())));
         }
-        
-        if (bestPrice == Double.MAX_VALUE) {
-            // If no price found, return a very high value to prevent false triggers
-            return Double.MAX_VALUE;
+    }
+
+    private double effectivePrice(String store, String productId, String date) {
+        Product product = marketDataRepository.getProduct(store, productId, date);
+        if (product == null) return Double.NaN;
+        Discount discount = marketDataRepository.getActiveDiscount(store, productId, date);
+        return discount != null ? product.getPrice() * (1 - discount.getDiscountPercent() / 100.0) : product.getPrice();
+    }
+
+    // Lower of two prices where NaN means not sold
+    private static double min(double a, double b) {
+        if (Double.isNaN(a)) return b;
+        if (Double.isNaN(b)) return a;
+        return Math.min(a, b);
+    }
+
+    /**
+     * Must be called after an alert is edited in place, so the index is rebuilt
+     */
+    public synchronized void alertsChanged() {
+        alertIndex = null;
+    }
+
+    private synchronized AlertIndex getAlertIndex() {
+        if (alertIndex == null) {
+            alertIndex = AlertIndex.build(alertRepository.getActiveAlerts());
         }
-        
-        return bestPrice;
+        return alertIndex;
     }
 
     public void deleteAlert(String productId) {
         alertRepository.deleteAlert(productId);
+        alertsChanged();
     }
 }
@@ -6,6 +6,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.stream.Collectors;
 
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.EpochDays;
 import com.pricecomparator.model.PricePoint;
 import com.pricecomparator.model.Product;
 import com.pricecomparator.repository.MarketDataRepository;
@@ -13,6 +14,8 @@ import com.pricecomparator.repository.MarketDataRepository;
 public class PriceDataService {
     private final MarketDataRepository marketDataRepository;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Products without a posted date sort as if posted on the first feed date
+    private static final int DEFAULT_POSTED_EPOCH_DAY = EpochDays.parse("2025-05-01");
 
     public PriceDataService() {
         this.marketDataRepository = MarketDataRepository.createFromFiles();
@@ -120,8 +123,8 @@ public class PriceDataService {
                 .collect(Collectors.toList());
             if (storeProductList.isEmpty()) continue;
             // Sort products by date (older to newer)
-            storeProductList.sort(Comparator.comparing(p -> 
-                LocalDate.parse(p.getDatePosted() != null ? p.getDatePosted() : "2025-05-01")));
+            storeProductList.sort(Comparator.comparingInt(p ->
+                p.getDatePostedEpochDay() != EpochDays.NONE ? p.getDatePostedEpochDay() : DEFAULT_POSTED_EPOCH_DAY));
             // Keep track of the latest product for this store
             latestProducts.put(store, storeProductList.get(storeProductList.size() - 1));
             // Initialize timeline for this store
@@ -130,12 +133,12 @@ public class PriceDataService {
             // Add initial price points for each product update
             for (Product product : storeProductList) {
                 String fileDate = product.getDatePosted();
-                if (fileDate == null) {
+                if (product.getDatePostedEpochDay() == EpochDays.NONE) {
                     System.out.println("Warning: Product " + product.getName() + " at " + 
                         store + " has no posted date");
                     continue;
                 }
-                LocalDate productDate = LocalDate.parse(fileDate);
+                LocalDate productDate = LocalDate.ofEpochDay(product.getDatePostedEpochDay());
                 double basePrice = product.getPrice();
                 // Create initial price point at the product's date
                 PricePoint basePoint = new PricePoint(
@@ -174,10 +177,11 @@ public class PriceDataService {
             if (!productDiscounts.isEmpty()) {
                 // For each discount, add price points at start and end dates
                 for (Discount discount : productDiscounts) {
-                    LocalDate startDate = LocalDate.parse(discount.getFromDate());
-                    LocalDate endDate = LocalDate.parse(discount.getToDate());
+                    if (discount.getFromEpochDay() == EpochDays.NONE || discount.getToEpochDay() == EpochDays.NONE) continue;
+                    LocalDate startDate = LocalDate.ofEpochDay(discount.getFromEpochDay());
+                    LocalDate endDate = LocalDate.ofEpochDay(discount.getToEpochDay());
                     // Find which product price applies at this discount's start date
-                    Product applicableProduct = findProductForDate(storeProductList, startDate);
+                    Product applicableProduct = findProductForDate(storeProductList, discount.getFromEpochDay());
                     if (applicableProduct == null) continue;
                     double basePrice = applicableProduct.getPrice();
                     double discountedPrice = basePrice * (1 - discount.getDiscountPercent() / 100.0);
@@ -196,7 +200,7 @@ public class PriceDataService {
                     // But only if there's no other price change on that exact date
                     LocalDate dayAfterDiscount = endDate.plusDays(1);
                     // Find which product price applies after the discount ends
-                    Product applicableProductAfter = findProductForDate(storeProductList, dayAfterDiscount);
+                    Product applicableProductAfter = findProductForDate(storeProductList, discount.getToEpochDay() + 1);
                     if (applicableProductAfter != null) {
                         double afterPrice = applicableProductAfter.getPrice();
                         // Add a price point for the return to regular price
@@ -292,22 +296,21 @@ public class PriceDataService {
      * Find which product's price is applicable for a given date
      * Returns the most recent product before or on the given date
      */
-    private Product findProductForDate(List<Product> products, LocalDate date) {
+    private Product findProductForDate(List<Product> products, int epochDay) {
         if (products == null || products.isEmpty()) return null;
         
         // Start with the first product as a fallback
         Product applicable = products.get(0);
         
         for (Product product : products) {
-            if (product.getDatePosted() == null) continue;
-            
-            LocalDate productDate = LocalDate.parse(product.getDatePosted());
+            int productDay = product.getDatePostedEpochDay();
+            if (productDay == EpochDays.NONE) continue;
             
             // If this product is more recent than our current pick,
             // but still not after the target date, use it
-            if (!productDate.isAfter(date) && 
-                (applicable.getDatePosted() == null || 
-                 productDate.isAfter(LocalDate.parse(applicable.getDatePosted())))) {
+            if (productDay <= epochDay &&
+                (applicable.getDatePostedEpochDay() == EpochDays.NONE ||
+                 productDay > applicable.getDatePostedEpochDay())) {
                 applicable = product;
             }
         }
@@ -0,0 +1,186 @@
+package com.pricecomparator.service;
+
+import java.util.*;
+
+/**
+ * Finds, for every store count up to a limit, the set of stores that buys all items cheapest.
+ * <p>
+ * With few stores the search is exact: a depth-first walk over store subsets that keeps the
+ * cheapest price per item seen so far and prunes a branch when even adding every remaining
+ * store could not beat the best plans already found. With many stores it switches to a greedy
+ * pick refined by swapping stores in and out until no swap helps.
+ */
+class StoreSubsetSearch {
+    /** Above this many candidate stores the heuristic is used */
+    static final int EXACT_STORE_LIMIT = 16;
+
+    private final double[][] costs; // [item][store], POSITIVE_INFINITY where the store lacks the item
+    private final int items;
+    private final int stores;
+    private final int maxStores;
+    private final int[][] bestSubsets; // by size
+    private final double[] bestCosts;  // by size
+
+    /**
+     * @param costs Line cost of every item in every store; every item must be sold by at least one store
+     */
+    StoreSubsetSearch(double[][] costs, int storeCount, int maxStores) {
+        this.costs = costs;
+        this.items = costs.length;
+        this.stores = storeCount;
+        this.maxStores = Math.min(maxStores, storeCount);
+        this.bestSubsets = new int[this.maxStores + 1][];
+        this.bestCosts = new double[this.maxStores + 1];
+        Arrays.fill(bestCosts, Double.POSITIVE_INFINITY);
+    }
+
+    boolean isExact() {
+        return stores <= EXACT_STORE_LIMIT;
+    }
+
+    /**
+     * Runs the search
+     *
+     * @return The best subset of each size from 1 to maxStores, or null for sizes that cannot buy every item
+     */
+    int[][] run() {
+        if (isExact()) {
+            searchExact();
+        } else {
+            searchGreedy();
+        }
+        return bestSubsets;
+    }
+
+    double getCost(int size) {
+        return bestCosts[size];
+    }
+
+    private void searchExact() {
+        // Visit stores that are cheapest on their own first, so good plans are found early
+        Integer[] order = new Integer[stores];
+        double[] alone = new double[stores];
+        for (int s = 0; s < stores; s++) {
+            order[s] = s;
+            for (int i = 0; i < items; i++) alone[s] += Math.min(costs[i][s], Double.MAX_VALUE);
+        }
+        Arrays.sort(order, Comparator.comparingDouble(s -> alone[s]));
+
+        // suffixMin[j][i]: cheapest price of item i among the stores from position j on
+        double[][] suffixMin = new double[stores + 1][items];
+        Arrays.fill(suffixMin[stores], Double.POSITIVE_INFINITY);
+        for (int j = stores - 1; j >= 0; j--) {
+            for (int i = 0; i < items; i++) {
+                suffixMin[j][i] = Math.min(suffixMin[j + 1][i], costs[i][order[j]]);
+            }
+        }
+
+        double[][] levels = new double[maxStores + 1][items];
+        Arrays.fill(levels[0], Double.POSITIVE_INFINITY);
+        dfs(0, 0, new int[maxStores], order, levels, suffixMin);
+    }
+
+    private void dfs(int position, int depth, int[] chosen, Integer[] order, double[][] levels, double[][] suffixMin) {
+        for (int j = position; j < stores; j++) {
+            int store = order[j];
+            double[] current = levels[depth];
+            double[] next = levels[depth + 1];
+            double sum = 0;
+            double bound = 0;
+            for (int i = 0; i < items; i++) {
+                next[i] = Math.min(current[i], costs[i][store]);
+                sum += next[i];
+                bound += Math.min(next[i], suffixMin[j + 1][i]);
+            }
+
+            chosen[depth] = store;
+            if (sum < bestCosts[depth + 1]) {
+                bestCosts[depth + 1] = sum;
+                bestSubsets[depth + 1] = Arrays.copyOf(chosen, depth + 1);
+            }
+
+            // Larger subsets from here cost at least bound; skip them if that beats no deeper best
+            if (depth + 1 < maxStores && bound < worstBestBelow(depth + 2)) {
+                dfs(j + 1, depth + 1, chosen, order, levels, suffixMin);
+            }
+        }
+    }
+
+    private double worstBestBelow(int fromSize) {
+        double worst = 0;
+        for (int size = fromSize; size <= maxStores; size++) {
+            worst = Math.max(worst, bestCosts[size]);
+        }
+        return worst;
+    }
+
+    private void searchGreedy() {
+        List<Integer> chosen = new ArrayList<>();
+        for (int size = 1; size <= maxStores; size++) {
+            int bestStore = -1;
+            double[] bestScore = null;
+            for (int s = 0; s < stores; s++) {
+                if (chosen.contains(s)) continue;
+                chosen.add(s);
+                double[] score = score(chosen);
+                chosen.remove(chosen.size() - 1);
+                if (bestScore == null || better(score, bestScore)) {
+                    bestScore = score;
+                    bestStore = s;
+                }
+            }
+            chosen.add(bestStore);
+            improveBySwaps(chosen);
+
+            double[] score = score(chosen);
+            if (score[0] == 0) {
+                bestCosts[size] = score[1];
+                bestSubsets[size] = chosen.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    private void improveBySwaps(List<Integer> chosen) {
+        double[] current = score(chosen);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int p = 0; p < chosen.size() && !improved; p++) {
+                int original = chosen.get(p);
+                for (int s = 0; s < stores; s++) {
+                    if (chosen.contains(s)) continue;
+                    chosen.set(p, s);
+                    double[] candidate = score(chosen);
+                    if (better(candidate, current)) {
+                        current = candidate;
+                        improved = true;
+                        break;
+                    }
+                    chosen.set(p, original);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a subset as {items it cannot buy, cost of the items it can}
+     */
+    private double[] score(List<Integer> subset) {
+        double uncovered = 0;
+        double cost = 0;
+        for (int i = 0; i < items; i++) {
+            double cheapest = Double.POSITIVE_INFINITY;
+            for (int s : subset) cheapest = Math.min(cheapest, costs[i][s]);
+            if (cheapest == Double.POSITIVE_INFINITY) {
+                uncovered++;
+            } else {
+                cost += cheapest;
+            }
+        }
+        return new double[] {uncovered, cost};
+    }
+
+    private static boolean better(double[] a, double[] b) {
+        return a[0] < b[0] || (a[0] == b[0] && a[1] < b[1]);
+    }
+}
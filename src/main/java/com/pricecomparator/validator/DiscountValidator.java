@@ -1,6 +1,7 @@
 package com.pricecomparator.validator;
 
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.EpochDays;
 
 public class DiscountValidator implements Validator<Discount> {
     
@@ -14,6 +15,16 @@ public class DiscountValidator implements Validator<Discount> {
         if (discount.getBrand() == null || discount.getBrand().isBlank()) {
             throw new ValidationException("Brand name is missing");
         }
+        // Stored as epoch days, where an unreadable date would silently never be active
+        if (discount.getFromEpochDay() == EpochDays.NONE) {
+            throw new ValidationException("Invalid start date: " + discount.getFromDate());
+        }
+        if (discount.getToEpochDay() == EpochDays.NONE) {
+            throw new ValidationException("Invalid end date: " + discount.getToDate());
+        }
+        if (discount.getDatePosted() != null && discount.getDatePostedEpochDay() == EpochDays.NONE) {
+            throw new ValidationException("Invalid posted date: " + discount.getDatePosted());
+        }
     }
     
 }
@@ -1,8 +1,12 @@
 package com.pricecomparator.validator;
 
+import com.pricecomparator.model.EpochDays;
 import com.pricecomparator.model.Product;
 
 public class ProductValidator implements Validator<Product> {
+    // Slack for the binary error of decimals like 10.10, far below a tenth of a ban
+    private static final double BANI_TOLERANCE = 1e-6;
+
     public void validate(Product p) {
         if (p.getName() == null || p.getName().isBlank())
             throw new ValidationException("Product name is missing");
@@ -12,5 +16,17 @@ public class ProductValidator implements Validator<Product> {
 
         if (p.getPrice() < 0)
             throw new ValidationException("Price cannot be negative");
+
+        if (p.getDatePosted() != null && p.getDatePostedEpochDay() == EpochDays.NONE)
+            throw new ValidationException("Invalid posted date: " + p.getDatePosted());
+    }
+
+    /**
+     * Checks a parsed price before it is stored in bani, so a third decimal is rejected rather than rounded
+     */
+    public void validatePrice(double price) {
+        double bani = price * 100;
+        if (Double.isNaN(bani) || Double.isInfinite(bani) || Math.abs(bani - Math.rint(bani)) > BANI_TOLERANCE)
+            throw new ValidationException("Price is not a whole number of bani: " + price);
     }
 }
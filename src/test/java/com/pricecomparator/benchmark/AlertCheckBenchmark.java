@@ -0,0 +1,102 @@
+package com.pricecomparator.benchmark;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.PriceAlert;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.repository.DiscountRepository;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.MarketDataRepository;
+import com.pricecomparator.repository.ProductRepository;
+import com.pricecomparator.service.AlertIndex;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Times checking price alerts for a date with the alert index, against the number of alerts.
+ * <p>
+ * The old per-alert scan of every store's list is timed on a sample and scaled up, since
+ * running it on millions of alerts would take hours.
+ * Run it with the test classpath, e.g. from the IDE; it is not part of the test suite.
+ */
+public class AlertCheckBenchmark {
+    private static final String DATE = "2025-05-08";
+    private static final List<String> STORES = Arrays.asList("Lidl", "Kaufland", "Profi", "Mega");
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int SCAN_SAMPLE = 200;
+
+    public static void main(String[] args) {
+        MarketDataRepository repo = createRepository();
+        long start = System.nanoTime();
+        EffectivePriceMatrix prices = repo.getEffectivePriceMatrix(DATE);
+        System.out.printf("price matrix for %,d products: %,.1f ms%n", CATALOG_SIZE, (System.nanoTime() - start) / 1e6);
+
+        for (int alertCount : new int[] {10_000, 100_000, 1_000_000, 3_000_000}) {
+            Random random = new Random(42);
+            List<PriceAlert> alerts = new ArrayList<>(alertCount);
+            for (int i = 0; i < alertCount; i++) {
+                alerts.add(new PriceAlert(productId(random.nextInt(CATALOG_SIZE)), "product", 1 + random.nextInt(50), "user" + i));
+            }
+
+            start = System.nanoTime();
+            AlertIndex index = AlertIndex.build(alerts);
+            double buildMillis = (System.nanoTime() - start) / 1e6;
+
+            // Warm up before timing the check
+            index.findTriggered(prices);
+            start = System.nanoTime();
+            long[] triggered = new long[1];
+            index.forEachTriggered(prices, (alert, price) -> triggered[0]++);
+            double checkMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_SAMPLE; i++) {
+                scanBestPrice(repo, alerts.get(i).getProductId());
+            }
+            double scanSeconds = (System.nanoTime() - start) / 1e9 / SCAN_SAMPLE * alertCount;
+
+            System.out.printf("alerts=%,9d  index build=%,8.1f ms  check=%,7.1f ms  triggered=%,9d  old scan=~%,8.0f s%n",
+                    alertCount, buildMillis, checkMillis, triggered[0], scanSeconds);
+        }
+    }
+
+    private static double scanBestPrice(MarketDataRepository repo, String productId) {
+        double best = Double.MAX_VALUE;
+        Map<String, List<Product>> storeProducts = repo.getProductsForDate(DATE);
+        for (String store : storeProducts.keySet()) {
+            Product product = storeProducts.get(store).stream().filter(p -> p.getId().equals(productId)).findFirst().orElse(null);
+            if (product == null) continue;
+            Discount discount = repo.getActiveDiscount(store, productId, DATE);
+            double price = product.getPrice() * (discount != null ? 1 - discount.getDiscountPercent() / 100.0 : 1);
+            best = Math.min(best, price);
+        }
+        return best;
+    }
+
+    private static MarketDataRepository createRepository() {
+        Map<String, Map<LocalDate, List<Product>>> productData = new HashMap<>();
+        Map<String, Map<LocalDate, List<Discount>>> discountData = new HashMap<>();
+        LocalDate date = LocalDate.parse(DATE);
+        Random random = new Random(7);
+
+        for (String store : STORES) {
+            List<Product> products = new ArrayList<>(CATALOG_SIZE);
+            List<Discount> discounts = new ArrayList<>();
+            for (int i = 0; i < CATALOG_SIZE; i++) {
+                products.add(new Product(productId(i), "product " + i, "category", "brand", 1, "buc",
+                        1 + random.nextInt(6_000) / 100.0, "RON", DATE));
+                if (i % 10 == 0) {
+                    discounts.add(new Discount(productId(i), "product " + i, "brand", "1", "buc", "category",
+                            "2025-05-01", "2025-05-14", 10 + i % 30, DATE));
+                }
+            }
+            productData.computeIfAbsent(store, k -> new HashMap<>()).put(date, products);
+            discountData.computeIfAbsent(store, k -> new HashMap<>()).put(date, discounts);
+        }
+        return new MarketDataRepository(new ProductRepository(productData), new DiscountRepository(discountData));
+    }
+
+    private static String productId(int i) {
+        return String.format("P%06d", i);
+    }
+}
@@ -0,0 +1,114 @@
+package com.pricecomparator.benchmark;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.repository.DiscountRepository;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.MarketDataRepository;
+import com.pricecomparator.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Times the per item and store lookups a basket optimization does, against catalog size.
+ * <p>
+ * Compares the cached effective price matrix and the indexed repository lookups with the
+ * old linear scan over a store's list.
+ * Run it with the test classpath, e.g. from the IDE; it is not part of the test suite.
+ */
+public class BasketLookupBenchmark {
+    private static final String DATE = "2025-05-08";
+    private static final List<String> STORES = Arrays.asList("Lidl", "Kaufland", "Profi", "Mega");
+    private static final int BASKET_SIZE = 20;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        for (int catalogSize : new int[] {1_000, 10_000, 100_000}) {
+            MarketDataRepository repo = createRepository(catalogSize);
+            List<String> basket = new ArrayList<>();
+            Random random = new Random(42);
+            for (int i = 0; i < BASKET_SIZE; i++) {
+                basket.add(productId(random.nextInt(catalogSize)));
+            }
+
+            // Warm up every path before timing them
+            runMatrix(repo, basket);
+            runIndexed(repo, basket);
+            runLinearScan(repo, basket);
+
+            double matrixMicros = time(() -> runMatrix(repo, basket));
+            double indexedMicros = time(() -> runIndexed(repo, basket));
+            double scanMicros = time(() -> runLinearScan(repo, basket));
+            System.out.printf("catalog=%,7d  matrix=%,8.1f us/basket  indexed=%,10.1f us/basket  linear scan=%,12.1f us/basket%n",
+                    catalogSize, matrixMicros, indexedMicros, scanMicros);
+        }
+    }
+
+    private static MarketDataRepository createRepository(int catalogSize) {
+        Map<String, Map<LocalDate, List<Product>>> productData = new HashMap<>();
+        Map<String, Map<LocalDate, List<Discount>>> discountData = new HashMap<>();
+        LocalDate date = LocalDate.parse(DATE);
+
+        for (String store : STORES) {
+            List<Product> products = new ArrayList<>(catalogSize);
+            List<Discount> discounts = new ArrayList<>();
+            for (int i = 0; i < catalogSize; i++) {
+                products.add(new Product(productId(i), "product " + i, "category", "brand", 1, "buc", 1 + i % 50, "RON", DATE));
+                if (i % 10 == 0) {
+                    discounts.add(new Discount(productId(i), "product " + i, "brand", "1", "buc", "category",
+                            "2025-05-01", "2025-05-14", 10 + i % 30, DATE));
+                }
+            }
+            productData.computeIfAbsent(store, k -> new HashMap<>()).put(date, products);
+            discountData.computeIfAbsent(store, k -> new HashMap<>()).put(date, discounts);
+        }
+        return new MarketDataRepository(new ProductRepository(productData), new DiscountRepository(discountData));
+    }
+
+    private static int runMatrix(MarketDataRepository repo, List<String> basket) {
+        EffectivePriceMatrix prices = repo.getEffectivePriceMatrix(DATE);
+        int found = 0;
+        for (String productId : basket) {
+            int row = prices.rowOf(productId);
+            if (row != EffectivePriceMatrix.NOT_FOUND && prices.getBestStore(row) != EffectivePriceMatrix.NOT_FOUND) found++;
+        }
+        return found;
+    }
+
+    private static int runIndexed(MarketDataRepository repo, List<String> basket) {
+        int found = 0;
+        for (String productId : basket) {
+            for (String store : STORES) {
+                if (repo.getProduct(store, productId, DATE) != null) found++;
+                if (repo.getActiveDiscount(store, productId, DATE) != null) found++;
+            }
+        }
+        return found;
+    }
+
+    private static int runLinearScan(MarketDataRepository repo, List<String> basket) {
+        int found = 0;
+        Map<String, List<Product>> products = repo.getProductsForDate(DATE);
+        Map<String, List<Discount>> discounts = repo.getDiscountsForDate(DATE);
+        for (String productId : basket) {
+            for (String store : STORES) {
+                if (products.get(store).stream().anyMatch(p -> p.getId().equals(productId))) found++;
+                if (discounts.get(store).stream().anyMatch(d -> d.getProductId().equals(productId))) found++;
+            }
+        }
+        return found;
+    }
+
+    private static double time(Runnable basketRun) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            basketRun.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ROUNDS;
+    }
+
+    private static String productId(int i) {
+        return String.format("P%06d", i);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pricecomparator.benchmark;
+
+import com.pricecomparator.model.BudgetBasket;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.model.WishListItem;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.service.BasketOptimizer;
+
+import java.util.*;
+
+/**
+ * Times picking the wish list items that fit a budget, against wish list size.
+ * <p>
+ * The budget covers about half of the wish list, which is where the choice is hardest.
+ * Run it with the test classpath, e.g. from the IDE; it is not part of the test suite.
+ */
+public class BudgetBasketBenchmark {
+    private static final String DATE = "2025-05-08";
+    private static final List<String> STORES = Arrays.asList("Lidl", "Kaufland", "Profi", "Mega");
+    private static final long TIME_LIMIT_MILLIS = 200;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        for (int listSize : new int[] {10, 50, 100, 250, 500, 1_000}) {
+            Random random = new Random(42);
+            EffectivePriceMatrix prices = createPrices(listSize, random);
+            List<WishListItem> wishList = new ArrayList<>();
+            for (int i = 0; i < listSize; i++) {
+                wishList.add(new WishListItem(productId(i), 1 + random.nextInt(3), 1 + random.nextInt(100)));
+            }
+            double budget = listSize * 10.0;
+
+            // Warm up before timing
+            BudgetBasket result = BasketOptimizer.optimizeWithinBudget(wishList, DATE, prices, budget, TIME_LIMIT_MILLIS);
+
+            int optimal = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                result = BasketOptimizer.optimizeWithinBudget(wishList, DATE, prices, budget, TIME_LIMIT_MILLIS);
+                if (result.isOptimal()) optimal++;
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+            System.out.printf("items=%,5d  solve=%,8.2f ms  optimal=%2d/%d  priority=%,d/%,d%n",
+                    listSize, millis, optimal, ROUNDS, result.getPriorityCovered(), result.getPriorityTotal());
+        }
+    }
+
+    private static EffectivePriceMatrix createPrices(int listSize, Random random) {
+        Map<String, List<Product>> storeProducts = new LinkedHashMap<>();
+        for (String store : STORES) {
+            List<Product> products = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                products.add(new Product(productId(i), "product " + i, "category", "brand", 1, "buc",
+                        1 + random.nextInt(5_000) / 100.0, "RON", DATE));
+            }
+            storeProducts.put(store, products);
+        }
+        return EffectivePriceMatrix.build(storeProducts, Collections.emptyMap());
+    }
+
+    private static String productId(int i) {
+        return String.format("P%06d", i);
+    }
+}
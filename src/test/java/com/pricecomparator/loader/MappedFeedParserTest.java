@@ -0,0 +1,129 @@
+package com.pricecomparator.loader;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.repository.MarketDataRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFeedParserTest {
+    private final FeedParser openCsv = new OpenCsvFeedParser();
+    private final FeedParser mapped = new MappedFeedParser();
+
+    @Test
+    void testEveryResourceFile_parsesIdenticallyToOpenCsv() {
+        for (MarketDataFile file : MarketDataLoader.listDataFiles()) {
+            if (file.isDiscountFile()) {
+                assertDiscountsEqual(MarketDataLoader.loadDiscountFile(file, openCsv),
+                        MarketDataLoader.loadDiscountFile(file, mapped));
+            } else {
+                assertProductsEqual(MarketDataLoader.loadProductFile(file, openCsv),
+                        MarketDataLoader.loadProductFile(file, mapped));
+            }
+        }
+    }
+
+    @Test
+    void testRepositories_identicalForBothBackends() {
+        MarketDataRepository fromOpenCsv = MarketDataRepository.createFromFiles(2, openCsv);
+        MarketDataRepository fromMapped = MarketDataRepository.createFromFiles(2, mapped);
+
+        for (String date : List.of("2025-05-01", "2025-05-05", "2025-05-08", "2025-06-01")) {
+            Map<String, List<Product>> expectedProducts = fromOpenCsv.getProductsForDate(date);
+            Map<String, List<Product>> actualProducts = fromMapped.getProductsForDate(date);
+            assertEquals(expectedProducts.keySet(), actualProducts.keySet());
+            expectedProducts.forEach((store, products) -> assertProductsEqual(products, actualProducts.get(store)));
+
+            Map<String, List<Discount>> expectedDiscounts = fromOpenCsv.getValidDiscountsForDate(date);
+            Map<String, List<Discount>> actualDiscounts = fromMapped.getValidDiscountsForDate(date);
+            assertEquals(expectedDiscounts.keySet(), actualDiscounts.keySet());
+            expectedDiscounts.forEach((store, discounts) -> assertDiscountsEqual(discounts, actualDiscounts.get(store)));
+        }
+    }
+
+    @Test
+    void testEdgeCases_matchOpenCsv(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("kaufland_2025-05-01.csv");
+        String content = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\r\n"
+                + "P001;lapte zuzu;lactate;Zuzu;1;l;10.10;RON\r\n"
+                + "\r\n"
+                + "P002;too;short\n"
+                + "P003;brânză telemea;lactate;Pilos;.3;kg;+1.5e1;RON;extra\n"
+                + "P004;bad price;lactate;Pilos;1;kg;abc;RON\n"
+                + "P005;no newline;lactate;Pilos;0.25;kg;7;RON";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        List<Product> expected = new ArrayList<>();
+        List<Product> actual = new ArrayList<>();
+        openCsv.parseProducts(file.toString(), expected::add);
+        mapped.parseProducts(file.toString(), actual::add);
+
+        assertEquals(3, actual.size());
+        assertProductsEqual(expected, actual);
+        assertEquals(15.0, actual.get(1).getPrice());
+    }
+
+    @Test
+    void testInvalidRows_rejectedByBothBackends(@TempDir Path dir) throws IOException {
+        Path products = dir.resolve("kaufland_2025-05-01.csv");
+        Files.write(products, ("product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n"
+                + "P001;lapte zuzu;lactate;Zuzu;1;l;10.10;RON\n"
+                + "P002;sub-ban price;lactate;Zuzu;1;l;9.995;RON\n").getBytes(StandardCharsets.UTF_8));
+        Path discounts = dir.resolve("kaufland_discounts_2025-05-01.csv");
+        Files.write(discounts, ("product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n"
+                + "P001;lapte zuzu;Zuzu;1;l;lactate;2025-05-01;2025-05-07;10\n"
+                + "P002;bad date;Zuzu;1;l;lactate;2025-05-32;2025-05-07;10\n"
+                + "P003;no date;Zuzu;1;l;lactate;;2025-05-07;10\n"
+                + "P004;bad percentage;Zuzu;1;l;lactate;2025-05-01;2025-05-07;zece\n"
+                + "P005;after the bad rows;Zuzu;1;l;lactate;2025-05-01;2025-05-07;15\n").getBytes(StandardCharsets.UTF_8));
+
+        for (FeedParser parser : List.of(openCsv, mapped)) {
+            List<Product> parsedProducts = new ArrayList<>();
+            assertEquals(1, parser.parseProducts(products.toString(), parsedProducts::add));
+            assertEquals(1010, parsedProducts.get(0).getPriceBani());
+
+            List<Discount> parsedDiscounts = new ArrayList<>();
+            assertEquals(2, parser.parseDiscounts(discounts.toString(), parsedDiscounts::add));
+            assertEquals("P001", parsedDiscounts.get(0).getProductId());
+            assertEquals("P005", parsedDiscounts.get(1).getProductId());
+        }
+    }
+
+    private static void assertProductsEqual(List<Product> expected, List<Product> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Product e = expected.get(i);
+            Product a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getCategory(), a.getCategory());
+            assertEquals(e.getBrand(), a.getBrand());
+            assertEquals(e.getQuantity(), a.getQuantity());
+            assertEquals(e.getUnit(), a.getUnit());
+            assertEquals(e.getPrice(), a.getPrice());
+            assertEquals(e.getCurrency(), a.getCurrency());
+            assertEquals(e.getDatePosted(), a.getDatePosted());
+        }
+    }
+
+    private static void assertDiscountsEqual(List<Discount> expected, List<Discount> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Discount e = expected.get(i);
+            Discount a = actual.get(i);
+            assertEquals(e.toString(), a.toString());
+            assertEquals(e.getProductId(), a.getProductId());
+            assertEquals(e.getDiscountPercent(), a.getDiscountPercent());
+            assertEquals(e.getFromDate(), a.getFromDate());
+            assertEquals(e.getToDate(), a.getToDate());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pricecomparator.loader;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataLoaderTest {
+
+    @Test
+    void testParallelLoad_matchesSerialLoad() {
+        Map<String, Map<LocalDate, List<Product>>> serialProducts = MarketDataLoader.loadAllProductFiles();
+        Map<String, Map<LocalDate, List<Discount>>> serialDiscounts = MarketDataLoader.loadAllDiscountFiles();
+
+        MarketDataLoadResult result = MarketDataLoader.loadAllFilesInParallel(4);
+
+        assertEquals(serialProducts.keySet(), result.getProductData().keySet());
+        assertEquals(serialDiscounts.keySet(), result.getDiscountData().keySet());
+        for (String store : serialProducts.keySet()) {
+            Map<LocalDate, List<Product>> parallelDates = result.getProductData().get(store);
+            assertEquals(serialProducts.get(store).keySet(), parallelDates.keySet());
+            serialProducts.get(store).forEach((date, products) ->
+                assertEquals(products.size(), parallelDates.get(date).size()));
+        }
+        for (String store : serialDiscounts.keySet()) {
+            Map<LocalDate, List<Discount>> parallelDates = result.getDiscountData().get(store);
+            assertEquals(serialDiscounts.get(store).keySet(), parallelDates.keySet());
+            serialDiscounts.get(store).forEach((date, discounts) ->
+                assertEquals(discounts.size(), parallelDates.get(date).size()));
+        }
+    }
+
+    @Test
+    void testParallelLoad_reportsEveryFile() {
+        MarketDataLoadResult result = MarketDataLoader.loadAllFilesInParallel(2);
+
+        assertEquals(MarketDataLoader.listDataFiles().size(), result.getTimings().size());
+        assertTrue(result.getTimings().stream().noneMatch(FileLoadTiming::isFailed));
+        assertEquals(result.getTimings().size() + 2, result.formatTimingReport().size());
+    }
+
+    @Test
+    void testParallelLoad_rejectsInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> MarketDataLoader.loadAllFilesInParallel(0));
+    }
+
+    @Test
+    void testStreamFromCSV_visitsEveryRowWithoutMaterializing() {
+        for (MarketDataFile file : MarketDataLoader.listDataFiles()) {
+            int[] visited = new int[1];
+            if (file.isDiscountFile()) {
+                int count = MarketDataLoader.streamDiscountFile(file, d -> {
+                    assertEquals(file.getDate().toString(), d.getDatePosted());
+                    visited[0]++;
+                });
+                assertEquals(DiscountLoader.loadFromCSV(file.getFile().getPath()).size(), count);
+            } else {
+                int count = MarketDataLoader.streamProductFile(file, p -> {
+                    assertEquals(file.getDate().toString(), p.getDatePosted());
+                    visited[0]++;
+                });
+                assertEquals(ProductLoader.loadFromCSV(file.getFile().getPath()).size(), count);
+            }
+            assertTrue(visited[0] > 0);
+        }
+    }
+
+    @Test
+    void testFromFile_classifiesFileNames() {
+        MarketDataFile products = MarketDataFile.fromFile(new java.io.File("lidl_2025-05-08.csv"));
+        MarketDataFile discounts = MarketDataFile.fromFile(new java.io.File("profi_discounts_2025-05-01.csv"));
+
+        assertEquals("Lidl", products.getStoreName());
+        assertFalse(products.isDiscountFile());
+        assertEquals(LocalDate.of(2025, 5, 8), products.getDate());
+        assertEquals("Profi", discounts.getStoreName());
+        assertTrue(discounts.isDiscountFile());
+        assertNull(MarketDataFile.fromFile(new java.io.File("alerts.csv")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.pricecomparator.loader;
+
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataSnapshotTest {
+
+    @Test
+    void testWriteAndRead_roundTripsAllPartitions(@TempDir Path dir) throws IOException {
+        List<MarketDataFile> files = MarketDataLoader.listDataFiles();
+        MarketDataLoadResult loaded = MarketDataLoader.loadAllFilesInParallel(2);
+        Path snapshotPath = dir.resolve("market_data.snapshot");
+
+        MarketDataSnapshot.write(snapshotPath, loaded.getProductData(), loaded.getDiscountData(), files);
+        MarketDataSnapshot snapshot = MarketDataSnapshot.readIfFresh(snapshotPath, files);
+
+        assertNotNull(snapshot);
+        assertEquals(loaded.getProductData().keySet(), snapshot.getProductData().keySet());
+        loaded.getProductData().forEach((store, dateMap) -> dateMap.forEach((date, products) -> {
+            List<Product> restored = snapshot.getProductData().get(store).get(date);
+            assertEquals(products.size(), restored.size());
+            for (int i = 0; i < products.size(); i++) {
+                assertEquals(products.get(i).getId(), restored.get(i).getId());
+                assertEquals(products.get(i).getPrice(), restored.get(i).getPrice());
+                assertEquals(products.get(i).getQuantity(), restored.get(i).getQuantity());
+                assertEquals(products.get(i).toString(), restored.get(i).toString());
+                // Decoded strings are the ones the parsers share
+                assertSame(StringDictionary.shared().intern(new String(restored.get(i).getName())), restored.get(i).getName());
+            }
+        }));
+        loaded.getDiscountData().forEach((store, dateMap) -> dateMap.forEach((date, discounts) -> {
+            List<Discount> restored = snapshot.getDiscountData().get(store).get(date);
+            assertEquals(discounts.size(), restored.size());
+            for (int i = 0; i < discounts.size(); i++) {
+                assertEquals(discounts.get(i).getProductId(), restored.get(i).getProductId());
+                assertEquals(discounts.get(i).getCategory(), restored.get(i).getCategory());
+                assertEquals(discounts.get(i).toString(), restored.get(i).toString());
+            }
+        }));
+
+        int rows = loaded.getTimings().stream().mapToInt(FileLoadTiming::getRowCount).sum();
+        assertEquals("Loaded snapshot " + snapshotPath + ": " + files.size() + " partitions (" + rows + " rows) in 7 ms",
+                snapshot.formatLoadReport(snapshotPath, 7));
+    }
+
+    @Test
+    void testReadIfFresh_rejectsChangedSources(@TempDir Path dir) throws IOException {
+        List<MarketDataFile> files = MarketDataLoader.listDataFiles();
+        Path snapshotPath = dir.resolve("market_data.snapshot");
+        MarketDataSnapshot.write(snapshotPath, new HashMap<String, Map<LocalDate, List<Product>>>(),
+                new HashMap<String, Map<LocalDate, List<Discount>>>(), files);
+
+        assertNull(MarketDataSnapshot.readIfFresh(snapshotPath, files.subList(1, files.size())));
+        assertNull(MarketDataSnapshot.readIfFresh(dir.resolve("missing.snapshot"), files));
+
+        Files.write(snapshotPath, new byte[] {1, 2, 3});
+        assertNull(MarketDataSnapshot.readIfFresh(snapshotPath, files));
+    }
+}
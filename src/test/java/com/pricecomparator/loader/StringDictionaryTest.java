@@ -0,0 +1,61 @@
+package com.pricecomparator.loader;
+
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void testIntern_returnsCanonicalInstanceAndCountsSavings() {
+        StringDictionary dictionary = new StringDictionary();
+        String first = new String("lactate");
+        String second = new String("lactate");
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertNull(dictionary.intern(null));
+        assertEquals(1, dictionary.getDuplicatesDropped());
+        assertEquals(24 + 24, dictionary.getBytesSaved());
+        assertEquals(dictionary.encode("lactate"), dictionary.codeOf(second));
+        assertEquals(StringDictionary.NULL_CODE, dictionary.codeOf("brânză"));
+    }
+
+    @Test
+    void testBytesHeld_growsWithEveryDistinctValue() {
+        StringDictionary dictionary = new StringDictionary();
+        dictionary.intern("lactate");
+        long held = dictionary.getBytesHeld();
+        assertEquals(24 + 24 + 64, held);
+
+        // Interning a known value holds nothing more; a new one always does
+        dictionary.intern(new String("lactate"));
+        assertEquals(held, dictionary.getBytesHeld());
+        dictionary.encode("ouă");
+        assertTrue(dictionary.getBytesHeld() > held);
+        assertTrue(dictionary.formatSavings().contains("2 distinct values holding"));
+    }
+
+    @Test
+    void testLoaders_shareStringsAcrossFiles() {
+        List<Product> products = new ArrayList<>();
+        for (MarketDataFile file : MarketDataLoader.listDataFiles()) {
+            if (!file.isDiscountFile()) {
+                products.addAll(MarketDataLoader.loadProductFile(file, new MappedFeedParser()));
+                products.addAll(MarketDataLoader.loadProductFile(file, new OpenCsvFeedParser()));
+            }
+        }
+
+        Map<String, String> firstSeen = new HashMap<>();
+        for (Product product : products) {
+            for (String value : Arrays.asList(product.getId(), product.getName(), product.getCategory(),
+                    product.getUnit(), product.getCurrency(), product.getDatePosted())) {
+                assertSame(firstSeen.computeIfAbsent(value, v -> v), value);
+            }
+        }
+        assertTrue(StringDictionary.shared().getBytesSaved() > 0);
+    }
+}
@@ -0,0 +1,117 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.model.Discount;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountPartitionTest {
+    private static final LocalDate START = LocalDate.of(2025, 5, 1);
+
+    private static Discount discount(String productId, LocalDate from, LocalDate to) {
+        return new Discount(productId, "produs " + productId, "brand", "1", "buc", "categorie",
+                from.toString(), to.toString(), 10);
+    }
+
+    @Test
+    void testFindActive_matchesScanOnEveryDay() {
+        Random random = new Random(7);
+        List<Discount> discounts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDate from = START.plusDays(random.nextInt(30));
+            discounts.add(discount("P" + random.nextInt(50), from, from.plusDays(random.nextInt(10))));
+        }
+        DiscountPartition partition = new DiscountPartition(discounts);
+
+        for (LocalDate day = START.minusDays(2); day.isBefore(START.plusDays(45)); day = day.plusDays(1)) {
+            LocalDate target = day;
+            List<Discount> expected = discounts.stream()
+                    .filter(d -> !target.isBefore(LocalDate.parse(d.getFromDate())) && !target.isAfter(LocalDate.parse(d.getToDate())))
+                    .collect(Collectors.toList());
+            assertEquals(expected, partition.findActive(target), "active on " + target);
+            for (int p = 0; p < 50; p++) {
+                String productId = "P" + p;
+                Discount first = expected.stream().filter(d -> d.getProductId().equals(productId)).findFirst().orElse(null);
+                assertSame(first, partition.findActiveForProduct(productId, target));
+            }
+        }
+    }
+
+    @Test
+    void testIntervalIndex_storesOverlappingDiscountsOnce() {
+        // Staggered long discounts: each of the 2n boundaries has about n/2 of them active
+        int n = 2000;
+        List<Discount> discounts = new ArrayList<>();
+        int[] fromDays = new int[n];
+        int[] toDays = new int[n];
+        for (int i = 0; i < n; i++) {
+            LocalDate from = START.plusDays(i);
+            discounts.add(discount("P" + i, from, from.plusDays(n)));
+            fromDays[i] = (int) from.toEpochDay();
+            toDays[i] = fromDays[i] + n;
+        }
+        DiscountIntervalIndex index = new DiscountIntervalIndex(discounts, fromDays, toDays);
+
+        assertEquals(2 * n, index.storedPositions());
+        assertEquals(discounts.subList(0, n / 2 + 1), index.activeOn(START.toEpochDay() + n / 2));
+        assertEquals(discounts.subList(n / 2, n), index.activeOn(START.toEpochDay() + n + n / 2));
+    }
+
+    @Test
+    void testFindActive_skipsUnreadableDatesAndIsReadOnly() {
+        Discount broken = new Discount("P1", "produs", "brand", "1", "buc", "categorie", "soon", "2025-05-07", 20);
+        Discount single = discount("P2", START, START);
+        DiscountPartition partition = new DiscountPartition(List.of(broken, single));
+
+        assertEquals(List.of(single), partition.findActive(START));
+        assertTrue(partition.findActive(START.plusDays(1)).isEmpty());
+        assertNull(partition.findActiveForProduct("P1", START));
+        assertThrows(UnsupportedOperationException.class, () -> partition.findActive(START).clear());
+    }
+
+    @Test
+    void testFindStartingBetween_matchesScan() {
+        Random random = new Random(13);
+        List<Discount> discounts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDate from = START.plusDays(random.nextInt(30));
+            discounts.add(discount("P" + i, from, from.plusDays(random.nextInt(10))));
+        }
+        DiscountPartition partition = new DiscountPartition(discounts);
+
+        for (int since = -3; since < 35; since += 4) {
+            for (int until = since; until < since + 8; until++) {
+                LocalDate from = START.plusDays(since);
+                LocalDate to = START.plusDays(until);
+                List<Discount> expected = discounts.stream()
+                        .filter(d -> !LocalDate.parse(d.getFromDate()).isBefore(from) && !LocalDate.parse(d.getFromDate()).isAfter(to))
+                        .sorted(Comparator.comparing(Discount::getFromDate))
+                        .collect(Collectors.toList());
+                assertEquals(expected, partition.findStartingBetween(from, to));
+            }
+        }
+        assertThrows(UnsupportedOperationException.class,
+                () -> partition.findStartingBetween(START, START.plusDays(30)).clear());
+    }
+
+    @Test
+    void testGetNewDiscounts_keepsOnlyStillValid() {
+        Discount expired = discount("P1", START, START.plusDays(1));
+        Discount running = discount("P2", START.plusDays(1), START.plusDays(9));
+        Discount today = discount("P3", START.plusDays(3), START.plusDays(4));
+        Discount future = discount("P4", START.plusDays(5), START.plusDays(9));
+        Map<String, Map<LocalDate, List<Discount>>> data = new HashMap<>();
+        data.put("Lidl", new HashMap<>(Map.of(START, List.of(future, today, running, expired))));
+        MarketDataRepository repo = new MarketDataRepository(
+                new ProductRepository(new HashMap<>()), new DiscountRepository(data));
+
+        String date = START.plusDays(3).toString();
+        assertEquals(Map.of("Lidl", List.of(running, today)), repo.getNewDiscounts(START.toString(), date));
+        assertEquals(Map.of("Lidl", List.of(today)), repo.getNewDiscounts(date, date));
+        assertEquals(Map.of(), repo.getNewDiscounts(START.minusDays(9).toString(), START.minusDays(1).toString()));
+    }
+}
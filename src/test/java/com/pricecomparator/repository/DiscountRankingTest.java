@@ -0,0 +1,56 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.model.Discount;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountRankingTest {
+
+    @Test
+    void testRankingMatchesFullSortAndPages() {
+        Random random = new Random(17);
+        Map<String, List<Discount>> active = new HashMap<>();
+        List<Discount> all = new ArrayList<>();
+        for (String store : List.of("Profi", "Lidl", "Kaufland")) {
+            List<Discount> discounts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                discounts.add(discount(store + i, 5 + random.nextInt(40)));
+            }
+            active.put(store, Collections.unmodifiableList(discounts));
+        }
+        for (String store : new TreeSet<>(active.keySet())) {
+            all.addAll(active.get(store));
+        }
+
+        DiscountRanking ranking = DiscountRanking.build(active);
+
+        // A stable full sort of the stores in name order gives the expected ties
+        List<Discount> expected = new ArrayList<>(all);
+        expected.sort((d1, d2) -> Integer.compare(d2.getDiscountPercent(), d1.getDiscountPercent()));
+        List<Discount> merged = new ArrayList<>();
+        for (int offset = 0; offset < ranking.getCountOfAllStores(); offset += 7) {
+            merged.addAll(ranking.getTopOfAllStores(offset, 7));
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDiscountPercent(), merged.get(i).getDiscountPercent());
+        }
+        assertEquals(new HashSet<>(all), new HashSet<>(merged));
+
+        List<Discount> lidl = new ArrayList<>(active.get("Lidl"));
+        lidl.sort((d1, d2) -> Integer.compare(d2.getDiscountPercent(), d1.getDiscountPercent()));
+        assertEquals(lidl.subList(10, 20), ranking.getTop("Lidl", 10, 10));
+        assertEquals(List.of(), ranking.getTop("Lidl", 500, 10));
+        assertEquals(List.of(), ranking.getTop("Mega", 0, 10));
+        assertEquals(600, ranking.getCountOfAllStores());
+        assertEquals(Set.of("Kaufland", "Lidl", "Profi"), ranking.getStores());
+        assertThrows(UnsupportedOperationException.class, () -> ranking.getTop("Lidl", 0, 5).set(0, null));
+    }
+
+    private static Discount discount(String productId, int percent) {
+        return new Discount(productId, "product " + productId, "brand", "1", "buc", "category",
+                "2025-05-01", "2025-05-07", percent, "2025-05-01");
+    }
+}
@@ -0,0 +1,57 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.loader.MarketDataFile;
+import com.pricecomparator.loader.OpenCsvFeedParser;
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectivePriceMatrixTest {
+
+    @Test
+    void testBuild_appliesDiscountsAndPicksCheapestStore() {
+        Map<String, List<Product>> products = new LinkedHashMap<>();
+        products.put("Lidl", List.of(new Product("P1", "lapte", "lactate", "Zuzu", 1, "l", 10.0, "RON")));
+        products.put("Profi", List.of(new Product("P1", "lapte", "lactate", "Zuzu", 1, "l", 9.0, "RON"),
+                new Product("P2", "pâine", "panificație", "Vel Pitar", 0.5, "kg", 5.0, "RON")));
+        Discount lidlDiscount = new Discount("P1", "lapte", "Zuzu", "1", "l", "lactate", "2025-05-01", "2025-05-07", 20);
+
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(products, Map.of("Lidl", List.of(lidlDiscount)));
+
+        int milk = matrix.rowOf("P1");
+        assertEquals("Lidl", matrix.getStore(matrix.getBestStore(milk)));
+        assertEquals(8.0, matrix.getEffectivePrice(milk, 0));
+        assertEquals(20, matrix.getDiscountPercent(milk, 0));
+        assertNull(matrix.getProduct(matrix.rowOf("P2"), 0));
+        assertEquals(EffectivePriceMatrix.NOT_FOUND, matrix.rowOf("P3"));
+    }
+
+    @Test
+    void testGetEffectivePriceMatrix_cachedUntilIngest(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = new MarketDataRepository(
+                new ProductRepository(new HashMap<String, Map<LocalDate, List<Product>>>()),
+                new DiscountRepository(new HashMap<String, Map<LocalDate, List<Discount>>>()));
+        EffectivePriceMatrix empty = repo.getEffectivePriceMatrix("2025-05-15");
+        assertSame(empty, repo.getEffectivePriceMatrix("2025-05-15"));
+        long version = repo.getDataVersion();
+
+        Path csv = dir.resolve("lidl_2025-05-15.csv");
+        Files.write(csv, ("product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n"
+                + "P001;lapte zuzu;lactate;Zuzu;1;l;9.70;RON\n").getBytes(StandardCharsets.UTF_8));
+        repo.ingestFile(MarketDataFile.fromFile(csv.toFile()), new OpenCsvFeedParser());
+
+        EffectivePriceMatrix reloaded = repo.getEffectivePriceMatrix("2025-05-15");
+        assertNotSame(empty, reloaded);
+        assertEquals(version + 1, repo.getDataVersion());
+        assertEquals(9.70, reloaded.getEffectivePrice(reloaded.rowOf("P001"), 0));
+    }
+}
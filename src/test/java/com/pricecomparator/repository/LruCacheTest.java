@@ -0,0 +1,66 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void testPut_evictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1, cache.generation());
+        cache.put("b", 2, cache.generation());
+        cache.get("a");
+        cache.put("c", 3, cache.generation());
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testPut_ignoresValueComputedBeforeInvalidation() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        long generation = cache.generation();
+        cache.invalidate(key -> true);
+        cache.put("a", 1, generation);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testProductRepository_sharesEntriesAcrossDatesAndThreads() throws Exception {
+        Map<String, Map<LocalDate, List<Product>>> data = new HashMap<>();
+        data.computeIfAbsent("Lidl", k -> new HashMap<>()).put(LocalDate.of(2025, 5, 1),
+                new ArrayList<>(List.of(new Product("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.7, "RON"))));
+        data.get("Lidl").put(LocalDate.of(2025, 5, 8),
+                new ArrayList<>(List.of(new Product("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 8.9, "RON"))));
+        ProductRepository repo = new ProductRepository(data);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Double>> prices = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String date = i % 2 == 0 ? "2025-05-0" + (1 + i % 7) : "2025-05-1" + (i % 10);
+            prices.add(pool.submit(() -> repo.getProductsForDate(date).get("Lidl").get(0).getPrice()));
+        }
+        for (int i = 0; i < prices.size(); i++) {
+            double expected = i % 2 == 0 && 1 + i % 7 < 8 ? 9.7 : 8.9;
+            assertEquals(expected, prices.get(i).get());
+        }
+        pool.shutdown();
+
+        // Every target date resolves to one of the two partitions
+        assertTrue(repo.getCache().size() <= 2);
+        assertThrows(UnsupportedOperationException.class,
+                () -> repo.getProductsForDate("2025-05-08").get("Lidl").clear());
+    }
+}
@@ -0,0 +1,101 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.loader.FeedParser;
+import com.pricecomparator.loader.MappedFeedParser;
+import com.pricecomparator.loader.MarketDataFile;
+import com.pricecomparator.loader.OpenCsvFeedParser;
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataWatcherTest {
+    private static final String PRODUCT_HEADER = "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+
+    private MarketDataRepository emptyRepository() {
+        return new MarketDataRepository(
+                new ProductRepository(new HashMap<String, Map<LocalDate, List<Product>>>()),
+                new DiscountRepository(new HashMap<String, Map<LocalDate, List<Discount>>>()));
+    }
+
+    @Test
+    void testIngestFile_invalidatesCachedDate(@TempDir Path dir) throws IOException {
+        MarketDataRepository repo = emptyRepository();
+        assertTrue(repo.getProductsForDate("2025-05-15").isEmpty());
+
+        Path csv = dir.resolve("lidl_2025-05-15.csv");
+        Files.write(csv, (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;9.70;RON\n").getBytes(StandardCharsets.UTF_8));
+        int rows = repo.ingestFile(MarketDataFile.fromFile(csv.toFile()), new OpenCsvFeedParser());
+
+        assertEquals(1, rows);
+        assertEquals(9.70, repo.getProductsForDate("2025-05-15").get("Lidl").get(0).getPrice());
+        assertNull(repo.getProductsForDate("2025-05-14").get("Lidl"));
+    }
+
+    @Test
+    void testWatcher_ingestsNewFile(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = emptyRepository();
+        try (MarketDataWatcher watcher = new MarketDataWatcher(repo, dir, new OpenCsvFeedParser())) {
+            watcher.start();
+            Files.write(dir.resolve("profi_2025-05-15.csv"),
+                    (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;12.50;RON\n").getBytes(StandardCharsets.UTF_8));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (repo.getProductsForDate("2025-05-15").get("Profi") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+        assertEquals(12.50, repo.getProductsForDate("2025-05-15").get("Profi").get(0).getPrice());
+    }
+
+    @Test
+    void testIngestFile_unreadableFileKeepsLoadedPartition(@TempDir Path dir) throws IOException {
+        for (FeedParser parser : List.of(new OpenCsvFeedParser(), new MappedFeedParser())) {
+            MarketDataRepository repo = emptyRepository();
+            Path csv = dir.resolve("lidl_2025-05-15.csv");
+            Files.write(csv, (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;9.70;RON\n").getBytes(StandardCharsets.UTF_8));
+            MarketDataFile file = MarketDataFile.fromFile(csv.toFile());
+            repo.ingestFile(file, parser);
+            long version = repo.getDataVersion();
+
+            Files.delete(csv);
+            assertThrows(UncheckedIOException.class, () -> repo.ingestFile(file, parser));
+            assertEquals(version, repo.getDataVersion());
+            assertEquals(9.70, repo.getProductsForDate("2025-05-15").get("Lidl").get(0).getPrice());
+        }
+    }
+
+    @Test
+    void testWatcher_waitsForFileToStopGrowing(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = emptyRepository();
+        Path csv = dir.resolve("profi_2025-05-15.csv");
+        try (MarketDataWatcher watcher = new MarketDataWatcher(repo, dir, new OpenCsvFeedParser())) {
+            watcher.start();
+            // Written in two parts, the second well inside the settle time
+            Files.write(csv, (PRODUCT_HEADER + "P001;lapte zuzu;lactate;Zuzu;1;l;12.50;RON\n").getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(50);
+            Files.write(csv, "P002;pâine;panificație;Vel Pitar;0.5;kg;4.20;RON\n".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (repo.getProductsForDate("2025-05-15").get("Profi") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Thread.sleep(500);
+        }
+        assertEquals(2, repo.getProductsForDate("2025-05-15").get("Profi").size());
+        // Ingested once, complete, rather than once per write
+        assertEquals(1, repo.getDataVersion());
+    }
+}
@@ -0,0 +1,113 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.loader.MarketDataLoader;
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionStoreTest {
+    private static final LocalDate MAY_1 = LocalDate.of(2025, 5, 1);
+    private static final LocalDate MAY_8 = LocalDate.of(2025, 5, 8);
+
+    private static class Rows<T> implements Partition {
+        private final List<T> rows;
+
+        Rows(List<T> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+
+    @Test
+    void testRegister_loadsOnlyWhenRead() {
+        Map<LocalDate, Integer> loads = new HashMap<>();
+        PartitionStore<Rows<String>> store = new PartitionStore<>();
+        for (LocalDate date : List.of(MAY_1, MAY_8)) {
+            store.register("Lidl", date, () -> {
+                loads.merge(date, 1, Integer::sum);
+                return new Rows<>(List.of("row-" + date));
+            });
+        }
+
+        assertEquals(MAY_1, store.latestDateOnOrBefore("Lidl", LocalDate.of(2025, 5, 5)));
+        assertTrue(loads.isEmpty());
+
+        assertEquals(List.of("row-2025-05-01"), store.get("Lidl", MAY_1).rows);
+        store.get("Lidl", MAY_1);
+        assertEquals(Map.of(MAY_1, 1), loads);
+        assertNull(store.get("Lidl", LocalDate.of(2025, 5, 2)));
+    }
+
+    @Test
+    void testDateLookups_useSortedDates() {
+        PartitionStore<Rows<Integer>> store = new PartitionStore<>();
+        for (int day : new int[] {20, 1, 14, 8}) {
+            store.put("Mega", LocalDate.of(2025, 5, day), new Rows<>(List.of(day)));
+        }
+
+        assertNull(store.latestDateOnOrBefore("Mega", LocalDate.of(2025, 4, 30)));
+        assertEquals(MAY_8, store.latestDateOnOrBefore("Mega", MAY_8));
+        assertEquals(LocalDate.of(2025, 5, 14), store.latestDateOnOrBefore("Mega", LocalDate.of(2025, 5, 19)));
+        assertEquals(List.of(MAY_1, MAY_8, LocalDate.of(2025, 5, 14)),
+                store.datesOnOrBefore("Mega", LocalDate.of(2025, 5, 14)));
+        assertNull(store.latestDateOnOrBefore("Lidl", MAY_8));
+    }
+
+    @Test
+    void testBudget_evictsLeastRecentlyUsed() {
+        int[] loads = new int[1];
+        PartitionStore<Rows<Integer>> store = new PartitionStore<>(3);
+        for (int day = 1; day <= 3; day++) {
+            store.register("Profi", LocalDate.of(2025, 5, day), () -> {
+                loads[0]++;
+                return new Rows<>(List.of(1, 2));
+            });
+        }
+
+        store.get("Profi", LocalDate.of(2025, 5, 1));
+        store.get("Profi", LocalDate.of(2025, 5, 2));
+        assertEquals(2, store.getResidentRows());
+        assertEquals(1, store.getEvictionCount());
+
+        store.get("Profi", LocalDate.of(2025, 5, 1));
+        assertEquals(3, loads[0]);
+        assertEquals(2, store.getEvictionCount());
+    }
+
+    @Test
+    void testPinnedPartitions_neverEvicted() {
+        PartitionStore<Rows<Integer>> store = new PartitionStore<>(1);
+        store.put("Kaufland", MAY_1, new Rows<>(List.of(1, 2, 3)));
+        store.register("Kaufland", MAY_8, () -> new Rows<>(List.of(4)));
+
+        store.get("Kaufland", MAY_8);
+        assertEquals(List.of(1, 2, 3), store.get("Kaufland", MAY_1).rows);
+        assertEquals(0, store.getEvictionCount());
+    }
+
+    @Test
+    void testLazyRepository_matchesEagerRepository() {
+        MarketDataRepository eager = MarketDataRepository.createFromFiles();
+        MarketDataRepository lazy = MarketDataRepository.createLazy(50, MarketDataLoader.DEFAULT_FEED_PARSER);
+
+        for (String date : List.of("2025-05-01", "2025-05-08", "2025-05-03", "2025-05-20")) {
+            Map<String, List<Product>> expected = eager.getProductsForDate(date);
+            Map<String, List<Product>> actual = lazy.getProductsForDate(date);
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((store, products) -> assertEquals(products.size(), actual.get(store).size()));
+
+            Map<String, List<Discount>> expectedDiscounts = eager.getAllDiscountsBeforeDate(date);
+            Map<String, List<Discount>> actualDiscounts = lazy.getAllDiscountsBeforeDate(date);
+            expectedDiscounts.forEach((store, discounts) -> assertEquals(discounts.size(), actualDiscounts.get(store).size()));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.loader.MarketDataLoader;
+import com.pricecomparator.loader.StringDictionary;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogTest {
+    private static final LocalDate MAY_1 = LocalDate.of(2025, 5, 1);
+    private static final LocalDate MAY_2 = LocalDate.of(2025, 5, 2);
+    private static final LocalDate MAY_3 = LocalDate.of(2025, 5, 3);
+
+    private static Product product(String id, double price, LocalDate date) {
+        return new Product(id, "produs " + id, "categorie", "brand", 1, "buc", price, "RON", date.toString());
+    }
+
+    private static Map<String, Map<LocalDate, List<Product>>> snapshots() {
+        Map<LocalDate, List<Product>> dates = new HashMap<>();
+        dates.put(MAY_3, List.of(product("P1", 9.5, MAY_3), product("P2", 4.0, MAY_3)));
+        dates.put(MAY_1, List.of(product("P1", 10.0, MAY_1), product("P2", 4.0, MAY_1)));
+        dates.put(MAY_2, List.of(product("P1", 10.0, MAY_2), product("P2", 4.0, MAY_2)));
+        Map<String, Map<LocalDate, List<Product>>> data = new HashMap<>();
+        data.put("Lidl", dates);
+        return data;
+    }
+
+    @Test
+    void testDeltaIngestion_storesOnlyPriceChanges() {
+        ProductRepository repo = ProductRepository.createWithDeltaIngestion(snapshots());
+
+        assertEquals(10.0, repo.findProductById("Lidl", "P1", "2025-05-02").getPrice());
+        assertEquals(9.5, repo.findProductById("Lidl", "P1", "2025-05-03").getPrice());
+        assertEquals("2025-05-03", repo.getProductsForDate("2025-05-09").get("Lidl").get(1).getDatePosted());
+
+        PartitionStore<ProductPartition> partitions = repo.getPartitions();
+        assertTrue(partitions.get("Lidl", MAY_1).sharesRowsWith(partitions.get("Lidl", MAY_3)));
+        // Two first prices and one change, instead of six rows
+        assertTrue(repo.describeDeltaStorage().contains("2 product descriptors, 3 stored prices"));
+    }
+
+    @Test
+    void testDeltaIngestion_storesOlderSnapshotInFull() {
+        ProductRepository repo = ProductRepository.createWithDeltaIngestion(snapshots());
+        LocalDate april = LocalDate.of(2025, 4, 24);
+        repo.putProducts("Lidl", april, List.of(product("P1", 11.0, april)), null);
+
+        assertEquals(11.0, repo.findProductById("Lidl", "P1", "2025-04-30").getPrice());
+        assertEquals(10.0, repo.findProductById("Lidl", "P1", "2025-05-01").getPrice());
+    }
+
+    @Test
+    void testAppendSnapshot_rejectedSnapshotAddsNoSlots() {
+        ProductCatalog catalog = ProductCatalog.delta(new StringDictionary());
+        int may1 = (int) MAY_1.toEpochDay();
+        int may2 = (int) MAY_2.toEpochDay();
+        assertNotNull(catalog.appendSnapshot(may1, List.of(product("P1", 10.0, MAY_1))));
+
+        assertNull(catalog.appendSnapshot(may2, List.of(product("P2", 4.0, MAY_2), product("P2", 4.0, MAY_2))));
+        assertNull(catalog.appendSnapshot(may2, List.of(product("P3", 4.0, MAY_2), product("P4", 4.0, MAY_1))));
+        assertEquals(1, catalog.slotCount());
+        assertEquals(1, catalog.getPriceChangeCount());
+
+        ProductPartition partition = catalog.appendSnapshot(may2, List.of(product("P1", 9.0, MAY_2), product("P2", 4.0, MAY_2)));
+        assertEquals(2, catalog.slotCount());
+        assertEquals(900, partition.getPriceBani(partition.rowOf("P1")));
+    }
+
+    @Test
+    void testDeltaRepository_matchesFullRepository() {
+        MarketDataRepository full = MarketDataRepository.createFromFiles();
+        MarketDataRepository delta = MarketDataRepository.createWithDeltaIngestion(2, MarketDataLoader.DEFAULT_FEED_PARSER);
+
+        for (String date : List.of("2025-05-01", "2025-05-05", "2025-05-08", "2025-05-30")) {
+            Map<String, List<Product>> expected = full.getProductsForDate(date);
+            Map<String, List<Product>> actual = delta.getProductsForDate(date);
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((store, products) -> {
+                for (int i = 0; i < products.size(); i++) {
+                    assertEquals(products.get(i).toString(), actual.get(store).get(i).toString());
+                }
+            });
+        }
+    }
+}
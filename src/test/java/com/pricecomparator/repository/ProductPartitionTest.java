@@ -0,0 +1,84 @@
+package com.pricecomparator.repository;
+
+import com.pricecomparator.loader.StringDictionary;
+import com.pricecomparator.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductPartitionTest {
+
+    @Test
+    void testGetProducts_roundTripsEveryColumn() {
+        List<Product> products = List.of(
+                new Product("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.70, "RON", "2025-05-01"),
+                new Product("P002", "ouă mărimea M", "ouă", "Ferma Veche", 10, "buc", 13.49, "RON", null),
+                new Product("P001", "lapte zuzu", "lactate", "Zuzu", 2, "l", 18.20, "RON", "2025-05-01"));
+        ProductPartition partition = new ProductPartition(products, new StringDictionary());
+
+        List<Product> restored = partition.getProducts();
+        assertEquals(products.size(), restored.size());
+        for (int i = 0; i < products.size(); i++) {
+            assertEquals(products.get(i).toString(), restored.get(i).toString());
+            assertEquals(products.get(i).getPriceBani(), restored.get(i).getPriceBani());
+            assertEquals(products.get(i).getDatePostedEpochDay(), restored.get(i).getDatePostedEpochDay());
+        }
+
+        // The first row wins for a repeated ID
+        assertEquals(9.70, partition.findById("P001").getPrice());
+        assertNull(partition.findById("P999"));
+    }
+
+    @Test
+    void testGetProducts_materializesOnceAndSharesDates() {
+        List<Product> products = List.of(
+                new Product("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.70, "RON", "2025-05-01"),
+                new Product("P002", "ouă mărimea M", "ouă", "Ferma Veche", 10, "buc", 13.49, "RON", "2025-05-01"));
+        ProductPartition partition = new ProductPartition(products, new StringDictionary());
+
+        List<Product> first = partition.getProducts();
+        assertSame(first, partition.getProducts());
+        assertSame(first.get(1), partition.findById("P002"));
+        assertSame(first.get(0).getDatePosted(), first.get(1).getDatePosted());
+        assertThrows(UnsupportedOperationException.class, () -> first.remove(0));
+    }
+
+    @Test
+    void testFindById_decodesOnlyTheRowBeforeTheListIsBuilt() {
+        List<Product> products = List.of(
+                new Product("P001", "lapte zuzu", "lactate", "Zuzu", 1, "l", 9.70, "RON", "2025-05-01"),
+                new Product("P002", "ouă mărimea M", "ouă", "Ferma Veche", 10, "buc", 13.49, "RON", "2025-05-01"));
+        ProductPartition partition = new ProductPartition(products, new StringDictionary());
+
+        Product single = partition.findById("P002");
+        assertEquals("ouă mărimea M", single.getName());
+        assertEquals(1349, single.getPriceBani());
+        assertEquals("2025-05-01", single.getDatePosted());
+        // Without a built list every lookup decodes its own copy
+        assertNotSame(single, partition.findById("P002"));
+
+        List<Product> all = partition.getProducts();
+        assertSame(all.get(1), partition.findById("P002"));
+    }
+
+    @Test
+    void testRowOf_findsEveryIdInALargePartition() {
+        StringDictionary dictionary = new StringDictionary();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            products.add(new Product("P" + i, "produs", "categorie", "brand", 1, "buc", i / 100.0, "RON"));
+        }
+        ProductPartition partition = new ProductPartition(products, dictionary);
+
+        for (int i = 0; i < products.size(); i++) {
+            int row = partition.rowOf("P" + i);
+            assertEquals(i, row);
+            assertEquals(i, partition.getPriceBani(row));
+        }
+        assertEquals(-1, partition.rowOf("missing"));
+        // Only the IDs are distinct strings
+        assertEquals(100_000 + 5, dictionary.size());
+    }
+}
@@ -1,13 +1,25 @@
 package com.pricecomparator.service;
 
+import com.pricecomparator.model.BasketCostCurve;
+import com.pricecomparator.model.BasketLine;
+import com.pricecomparator.model.BasketSplit;
+import com.pricecomparator.model.BudgetBasket;
 import com.pricecomparator.model.Product;
+import com.pricecomparator.model.StoreLimitedBasket;
+import com.pricecomparator.model.WishListItem;
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.DiscountRepository;
 import com.pricecomparator.repository.MarketDataRepository;
+import com.pricecomparator.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.io.StringWriter;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,12 +43,20 @@ class BasketOptimizerTest {
                 "Kaufland", List.of(p1),
                 "Lidl", List.of(p2)
         );
-        when(repo.getProductsForDate(date)).thenReturn(data);
-        when(repo.getProduct("Kaufland", "P1")).thenReturn(p1);
-        when(repo.getProduct("Lidl", "P2")).thenReturn(p2);
-        when(repo.getActiveDiscount(anyString(), anyString(), anyString())).thenReturn(null);
-        List<String> basket = List.of("P1", "P2");
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of());
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
+        List<String> basket = List.of("P1", "P2", "P2");
         optimizer.optimizeBasketSplit(basket, date);
+
+        BasketSplit split = optimizer.optimize(null, Map.of("P1", 1, "P2", 2), date);
+        Map<String, BasketLine> lines = split.getLines().stream()
+                .collect(Collectors.toMap(BasketLine::getProductId, line -> line));
+        assertEquals("Kaufland", lines.get("P1").getStore());
+        assertEquals("Lidl", lines.get("P2").getStore());
+        assertEquals(2, lines.get("P2").getQuantity());
+        assertEquals(8.0, lines.get("P2").getUnitPrice());
+        assertEquals(10.0 + 2 * 8.0, split.getOptimizedTotal(), 1e-9);
+        assertTrue(split.getMissingProductIds().isEmpty());
     }
 
     @Test
@@ -44,20 +64,283 @@ class BasketOptimizerTest {
         Product p1 = new Product("P1", "Banana", "Fruits", "BrandA", 2.0, "kg", 10.0, "RON");
         Discount d1 = mock(Discount.class);
         when(d1.getDiscountPercent()).thenReturn(10);
+        when(d1.getProductId()).thenReturn("P1");
         Map<String, List<Product>> data = Map.of("Kaufland", List.of(p1));
-        when(repo.getProductsForDate(date)).thenReturn(data);
-        when(repo.getProduct("Kaufland", "P1")).thenReturn(p1);
-        when(repo.getActiveDiscount("Kaufland", "P1", date)).thenReturn(d1);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of("Kaufland", List.of(d1)));
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
         List<String> basket = List.of("P1");
         optimizer.optimizeBasketSplit(basket, date);
+
+        BasketSplit split = optimizer.optimize(null, Map.of("P1", 1), date);
+        BasketLine line = split.getLines().get(0);
+        assertEquals("Kaufland", line.getStore());
+        assertEquals(10.0, line.getOriginalUnitPrice());
+        assertEquals(9.0, line.getUnitPrice());
+        assertEquals(10, line.getDiscountPercent());
+        assertEquals(1.0, split.getSavings(), 1e-9);
+    }
+
+    @Test
+    void testOptimize_discountMovesProductToAnotherStore() {
+        Product milkLidl = new Product("P1", "Milk", "Dairy", "BrandB", 1.0, "l", 10.0, "RON");
+        Product milkProfi = new Product("P1", "Milk", "Dairy", "BrandB", 1.0, "l", 9.0, "RON");
+        Discount lidlDiscount = new Discount("P1", "Milk", "BrandB", "1", "l", "Dairy", date, date, 20);
+        Map<String, List<Product>> data = new LinkedHashMap<>();
+        data.put("Lidl", List.of(milkLidl));
+        data.put("Profi", List.of(milkProfi));
+
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(EffectivePriceMatrix.build(data, Map.of()));
+        BasketLine withoutDiscount = optimizer.optimize(null, Map.of("P1", 2), date).getLines().get(0);
+        assertEquals("Profi", withoutDiscount.getStore());
+        assertEquals(9.0, withoutDiscount.getUnitPrice());
+
+        // 20% off at Lidl brings it to 8.00, below Profi's shelf price
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(EffectivePriceMatrix.build(data, Map.of("Lidl", List.of(lidlDiscount))));
+        when(repo.getDataVersion()).thenReturn(1L);
+        BasketSplit split = optimizer.optimize(null, Map.of("P1", 2), date);
+        BasketLine withDiscount = split.getLines().get(0);
+        assertEquals("Lidl", withDiscount.getStore());
+        assertEquals(8.0, withDiscount.getUnitPrice());
+        assertEquals(20, withDiscount.getDiscountPercent());
+        assertEquals(16.0, split.getOptimizedTotal(), 1e-9);
     }
 
     @Test
     void testOptimizeBasketSplit_missingProduct() {
         Map<String, List<Product>> data = Map.of("Kaufland", List.of());
-        when(repo.getProductsForDate(date)).thenReturn(data);
-        when(repo.getProduct(anyString(), anyString())).thenReturn(null);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of());
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
         List<String> basket = List.of("P1");
         optimizer.optimizeBasketSplit(basket, date);
+
+        BasketSplit split = optimizer.optimize(null, Map.of("P1", 1), date);
+        assertTrue(split.getLines().isEmpty());
+        assertEquals(List.of("P1"), split.getMissingProductIds());
+        assertEquals(0.0, split.getOptimizedTotal());
+    }
+
+    @Test
+    void testOptimizeBaskets_parallelBatchWithStreamingWriter() throws Exception {
+        Product bananaKaufland = new Product("P1", "Banana", "Fruits", "BrandA", 1.0, "kg", 10.0, "RON");
+        Product bananaLidl = new Product("P1", "Banana", "Fruits", "BrandA", 1.0, "kg", 9.0, "RON");
+        Product milk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 8.0, "RON");
+        Map<String, List<Product>> data = new LinkedHashMap<>();
+        data.put("Kaufland", List.of(bananaKaufland, milk));
+        data.put("Lidl", List.of(bananaLidl));
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(EffectivePriceMatrix.build(data, Map.of()));
+
+        Map<String, Map<String, Integer>> baskets = new LinkedHashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            quantities.put("P1", 1 + i % 3);
+            quantities.put(i % 2 == 0 ? "P2" : "P9", 1);
+            baskets.put("B" + i, quantities);
+        }
+
+        Map<String, BasketSplit> results = optimizer.optimizeBaskets(baskets, date, 4);
+        assertEquals(baskets.size(), results.size());
+        BasketSplit even = results.get("B4");
+        assertEquals("Lidl", even.getLines().get(0).getStore());
+        assertEquals(2 * 9.0 + 8.0, even.getOptimizedTotal());
+        assertEquals(List.of("P9"), results.get("B7").getMissingProductIds());
+
+        StringWriter out = new StringWriter();
+        try (BasketSplitWriter writer = new BasketSplitWriter(out)) {
+            assertEquals(1, optimizer.optimizeBaskets(List.of(Map.entry("B1", Map.of("P2", 3))).iterator(), date, 2, writer));
+        }
+        assertEquals(BasketSplitWriter.HEADER + System.lineSeparator()
+                + "B1;2025-05-01;P2;Kaufland;3;8.00;0;24.00" + System.lineSeparator(), out.toString());
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimizeBaskets(baskets, date, 0));
+    }
+
+    @Test
+    void testOptimizeBaskets_matchesSingleBasketResultsWithoutFillingCache() {
+        Product breadLidl = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 5.0, "RON");
+        Product breadProfi = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 4.5, "RON");
+        Product milk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 8.0, "RON");
+        Map<String, List<Product>> data = new LinkedHashMap<>();
+        data.put("Lidl", List.of(breadLidl, milk));
+        data.put("Profi", List.of(breadProfi));
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of());
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
+
+        Map<String, Map<String, Integer>> baskets = new LinkedHashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            quantities.put(i % 2 == 0 ? "P1" : "P2", 1 + i % 5);
+            quantities.put("P" + (i % 7), 1 + i);
+            baskets.put("B" + i, quantities);
+        }
+
+        Map<String, BasketSplit> results = optimizer.optimizeBaskets(baskets, date, 4);
+        assertEquals(0, optimizer.getResultCache().size());
+        assertEquals(0, optimizer.getResultCache().getMissCount());
+        for (Map.Entry<String, Map<String, Integer>> basket : baskets.entrySet()) {
+            BasketSplit expected = BasketOptimizer.optimize(basket.getKey(), basket.getValue(), date, matrix);
+            BasketSplit actual = results.get(basket.getKey());
+            assertEquals(expected.getOptimizedTotal(), actual.getOptimizedTotal(), 1e-9);
+            assertEquals(expected.getMissingProductIds(), actual.getMissingProductIds());
+        }
+        assertEquals("Profi", results.get("B0").getLines().get(0).getStore());
+    }
+
+    @Test
+    void testOptimizeWithStoreLimit_visitCostDecidesStoreCount() {
+        Product lidlBread = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 5.0, "RON");
+        Product lidlMilk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 10.0, "RON");
+        Product profiMilk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 7.0, "RON");
+        Map<String, List<Product>> data = new LinkedHashMap<>();
+        data.put("Lidl", List.of(lidlBread, lidlMilk));
+        data.put("Profi", List.of(profiMilk));
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(EffectivePriceMatrix.build(data, Map.of()));
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        basket.put("P1", 1);
+        basket.put("P2", 2);
+        basket.put("P9", 1);
+
+        List<StoreLimitedBasket> plans = optimizer.optimizeWithStoreLimit(basket, date, 3, 2.0);
+        assertEquals(3, plans.size());
+        assertEquals(List.of("Lidl"), plans.get(0).getStores());
+        assertEquals(27.0, plans.get(0).getTotalCost(), 1e-9);
+        assertEquals(List.of("Lidl", "Profi"), plans.get(1).getStores());
+        assertEquals(23.0, plans.get(1).getTotalCost(), 1e-9);
+        assertEquals("Profi", plans.get(1).getSplit().getLines().get(1).getStore());
+        assertEquals(List.of("P9"), plans.get(1).getSplit().getMissingProductIds());
+        assertEquals(List.of("Lidl", "Profi"), plans.get(2).getStores());
+        assertTrue(plans.get(1).isExact());
+
+        // Saving 6 RON on milk is not worth a 10 RON trip
+        List<StoreLimitedBasket> expensiveTrips = optimizer.optimizeWithStoreLimit(basket, date, 2, 10.0);
+        assertEquals(List.of("Lidl"), expensiveTrips.get(1).getStores());
+    }
+
+    @Test
+    void testOptimizeWithinBudget_picksMostPriorityThatFits() {
+        Product bread = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 6.0, "RON");
+        Product milk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 8.0, "RON");
+        Product coffee = new Product("P3", "Coffee", "Drinks", "BrandC", 1.0, "buc", 25.0, "RON");
+        Discount coffeeDiscount = mock(Discount.class);
+        when(coffeeDiscount.getProductId()).thenReturn("P3");
+        when(coffeeDiscount.getDiscountPercent()).thenReturn(20);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(
+                Map.of("Lidl", List.of(bread, milk, coffee)), Map.of("Lidl", List.of(coffeeDiscount)));
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
+
+        List<WishListItem> wishList = List.of(
+                new WishListItem("P3", 1, 5),
+                new WishListItem("P1", 2, 4),
+                new WishListItem("P2", 1, 2),
+                new WishListItem("P9", 1, 9));
+        // Coffee costs 20 after the discount, so it fits with the milk but not with the bread
+        BudgetBasket result = optimizer.optimizeWithinBudget(wishList, date, 30.0);
+
+        assertEquals(List.of("P3", "P2"), result.getSplit().getLines().stream().map(l -> l.getProductId()).collect(Collectors.toList()));
+        assertEquals(List.of("P1"), result.getSkippedProductIds());
+        assertEquals(List.of("P9"), result.getSplit().getMissingProductIds());
+        assertEquals(7, result.getPriorityCovered());
+        assertEquals(11, result.getPriorityTotal());
+        assertEquals(2.0, result.getRemainingBudget(), 1e-9);
+        assertTrue(result.isOptimal());
+    }
+
+    @Test
+    void testOptimizeWithinBudget_costsComeFromIntegerBani() {
+        // 0.29 RON at 50% off is 14.5 bani, which the double total 0.145 rounded down to 14
+        Product gum = new Product("P1", "Gum", "Sweets", "BrandA", 1.0, "buc", 0.29, "RON");
+        Discount gumDiscount = mock(Discount.class);
+        when(gumDiscount.getProductId()).thenReturn("P1");
+        when(gumDiscount.getDiscountPercent()).thenReturn(50);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(Map.of("Lidl", List.of(gum)), Map.of("Lidl", List.of(gumDiscount)));
+        List<WishListItem> wishList = List.of(new WishListItem("P1", 1, 1));
+
+        assertEquals(15, matrix.getEffectiveTotalBani(matrix.rowOf("P1"), 0, 1));
+        BudgetBasket tooTight = BasketOptimizer.optimizeWithinBudget(wishList, date, matrix, 0.14, 1000);
+        assertEquals(List.of("P1"), tooTight.getSkippedProductIds());
+        assertEquals(0.14, tooTight.getRemainingBudget(), 1e-9);
+
+        BudgetBasket exact = BasketOptimizer.optimizeWithinBudget(wishList, date, matrix, 0.15, 1000);
+        assertTrue(exact.getSkippedProductIds().isEmpty());
+        assertEquals(0.15, exact.getSplit().getOptimizedTotal(), 1e-9);
+        assertEquals(0.0, exact.getRemainingBudget(), 1e-9);
+    }
+
+    @Test
+    void testOptimizeAcrossDates_matchesDailyOptimization() {
+        LocalDate first = LocalDate.parse("2025-05-01");
+        LocalDate second = LocalDate.parse("2025-05-08");
+        Map<String, Map<LocalDate, List<Product>>> products = new HashMap<>();
+        products.put("Lidl", new HashMap<>(Map.of(
+                first, List.of(new Product("P1", "Bread", "Bakery", "A", 1, "buc", 6.0, "RON", "2025-05-01"),
+                        new Product("P2", "Milk", "Dairy", "B", 1, "l", 9.0, "RON", "2025-05-01")),
+                second, List.of(new Product("P1", "Bread", "Bakery", "A", 1, "buc", 5.0, "RON", "2025-05-08"),
+                        new Product("P2", "Milk", "Dairy", "B", 1, "l", 9.5, "RON", "2025-05-08")))));
+        products.put("Profi", new HashMap<>(Map.of(
+                first, List.of(new Product("P2", "Milk", "Dairy", "B", 1, "l", 8.0, "RON", "2025-05-01")))));
+        Map<String, Map<LocalDate, List<Discount>>> discounts = new HashMap<>();
+        discounts.put("Lidl", new HashMap<>(Map.of(first, List.of(
+                new Discount("P2", "Milk", "B", "1", "l", "Dairy", "2025-05-03", "2025-05-05", 30, "2025-05-01"),
+                new Discount("P2", "Milk", "B", "1", "l", "Dairy", "2025-05-04", "2025-05-10", 10, "2025-05-01")))));
+        discounts.put("Profi", new HashMap<>(Map.of(second, List.of(
+                new Discount("P1", "Bread", "A", "1", "buc", "Bakery", "2025-05-09", "2025-05-12", 50, "2025-05-08")))));
+        MarketDataRepository data = new MarketDataRepository(new ProductRepository(products), new DiscountRepository(discounts));
+        BasketOptimizer dataOptimizer = new BasketOptimizer(data);
+
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        basket.put("P1", 2);
+        basket.put("P2", 1);
+        basket.put("P9", 1);
+        BasketCostCurve curve = dataOptimizer.optimizeAcrossDates(basket, "2025-04-30", "2025-05-14");
+
+        assertEquals(15, curve.getDayCount());
+        for (int day = 0; day < curve.getDayCount(); day++) {
+            String date = curve.getDate(day);
+            BasketSplit split = BasketOptimizer.optimize(null, basket, date, data.getEffectivePriceMatrix(date));
+            assertEquals(split.getOptimizedTotal(), curve.getTotal(day), 1e-9, date);
+            assertEquals(split.getMissingProductIds().size(), curve.getMissingCount(day), date);
+        }
+        assertEquals(3, curve.getMissingCount(0));
+        // Bread drops to 5.00 in the second Lidl file; milk is cheapest at Profi for 8.00
+        assertEquals("2025-05-08", curve.getCheapestDate());
+        assertEquals(18.0, curve.getCheapestTotal(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> dataOptimizer.optimizeAcrossDates(basket, "2025-05-02", "2025-05-01"));
+    }
+
+    @Test
+    void testOptimize_reusesResultsUntilDataChanges() {
+        Product bread = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 5.0, "RON");
+        Product milk = new Product("P2", "Milk", "Dairy", "BrandB", 1.0, "l", 8.0, "RON");
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(Map.of("Lidl", List.of(bread, milk)), Map.of());
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(matrix);
+        optimizer = new BasketOptimizer(repo, 2);
+
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        basket.put("P1", 2);
+        basket.put("P2", 1);
+        basket.put("P9", 1);
+        Map<String, Integer> reordered = new LinkedHashMap<>();
+        reordered.put("P9", 1);
+        reordered.put("P2", 1);
+        reordered.put("P1", 2);
+
+        assertEquals(18.0, optimizer.optimize("A", basket, date).getOptimizedTotal(), 1e-9);
+        BasketSplit reused = optimizer.optimize("B", reordered, date);
+        assertEquals("B", reused.getBasketId());
+        assertEquals("P2", reused.getLines().get(0).getProductId());
+        assertEquals(List.of("P9"), reused.getMissingProductIds());
+        assertEquals(1, optimizer.getResultCache().getHitCount());
+        assertEquals(0.5, optimizer.getResultCache().getHitRate(), 1e-9);
+
+        // New files bump the data version, so the old result is dropped rather than reused
+        Product cheaperBread = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 4.0, "RON");
+        EffectivePriceMatrix newMatrix = EffectivePriceMatrix.build(Map.of("Lidl", List.of(cheaperBread, milk)), Map.of());
+        when(repo.getEffectivePriceMatrix(date)).thenReturn(newMatrix);
+        when(repo.getDataVersion()).thenReturn(1L);
+        assertEquals(16.0, optimizer.optimize("A", basket, date).getOptimizedTotal(), 1e-9);
+        assertEquals(1, optimizer.getResultCache().size());
+
+        optimizer.optimize("C", Map.of("P1", 1), date);
+        optimizer.optimize("D", Map.of("P2", 1), date);
+        assertEquals(2, optimizer.getResultCache().size());
+        assertEquals(1, optimizer.getResultCache().getEvictionCount());
     }
-} 
\ No newline at end of file
+}
@@ -1,12 +1,15 @@
 package com.pricecomparator.service;
 
 import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.DiscountPage;
+import com.pricecomparator.repository.DiscountRanking;
 import com.pricecomparator.repository.MarketDataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class BestDiscountsTest {
@@ -23,12 +26,18 @@ class BestDiscountsTest {
     @Test
     void testShowBestDiscounts_singleStore() {
         Discount d1 = mock(Discount.class);
-        when(d1.getDiscountPercent()).thenReturn(20);
+        when(d1.getDiscountPercent()).thenReturn(10);
         Discount d2 = mock(Discount.class);
-        when(d2.getDiscountPercent()).thenReturn(10);
-        Map<String, List<Discount>> data = Map.of("Kaufland", new ArrayList<>(List.of(d1, d2)));
-        when(repo.getValidDiscountsForDate(date)).thenReturn(data);
+        when(d2.getDiscountPercent()).thenReturn(20);
+        List<Discount> shared = List.of(d1, d2);
+        DiscountRanking ranking = DiscountRanking.build(Map.of("Kaufland", shared));
+        when(repo.getDiscountRanking(date)).thenReturn(ranking);
         bestDiscounts.showBestDiscounts("Kaufland", date, 2);
+
+        DiscountPage page = bestDiscounts.getBestDiscounts("Kaufland", date, 0, 2);
+        assertEquals(List.of(d2, d1), page.getDiscounts());
+        assertFalse(page.hasNextPage());
+        assertEquals(List.of(d1, d2), shared);
     }
 
     @Test
@@ -41,14 +50,22 @@ class BestDiscountsTest {
                 "Kaufland", new ArrayList<>(List.of(d1)),
                 "Lidl", new ArrayList<>(List.of(d2))
         );
-        when(repo.getValidDiscountsForDate(date)).thenReturn(data);
-        bestDiscounts.showBestDiscounts("All stores", date, 2);
+        DiscountRanking ranking = DiscountRanking.build(data);
+        when(repo.getDiscountRanking(date)).thenReturn(ranking);
+        bestDiscounts.showBestDiscounts(BestDiscounts.ALL_STORES, date, 2);
+
+        DiscountPage first = bestDiscounts.getBestDiscounts(BestDiscounts.ALL_STORES, date, 0, 1);
+        assertEquals(List.of(d1), first.getDiscounts());
+        assertTrue(first.hasNextPage());
+        assertEquals(List.of(d2), bestDiscounts.getBestDiscounts(BestDiscounts.ALL_STORES, date, 1, 1).getDiscounts());
     }
 
     @Test
     void testShowBestDiscounts_noDiscounts() {
-        Map<String, List<Discount>> data = Map.of("Kaufland", new ArrayList<>());
-        when(repo.getValidDiscountsForDate(date)).thenReturn(data);
+        DiscountRanking ranking = DiscountRanking.build(Map.of("Kaufland", new ArrayList<>()));
+        when(repo.getDiscountRanking(date)).thenReturn(ranking);
         bestDiscounts.showBestDiscounts("Kaufland", date, 2);
+
+        assertEquals(0, bestDiscounts.getBestDiscounts("Kaufland", date, 0, 2).getTotalCount());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetKnapsackTest {
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            int items = 14;
+            long[] costs = new long[items];
+            long[] values = new long[items];
+            for (int i = 0; i < items; i++) {
+                costs[i] = 100 + random.nextInt(5_000);
+                values[i] = random.nextInt(20);
+            }
+            long budget = 5_000 + random.nextInt(20_000);
+
+            BudgetKnapsack knapsack = new BudgetKnapsack(costs, values, budget, Long.MAX_VALUE / 2);
+            boolean[] picked = knapsack.solve();
+            assertTrue(knapsack.isOptimal());
+
+            long spent = 0;
+            long value = 0;
+            for (int i = 0; i < items; i++) {
+                if (picked[i]) {
+                    spent += costs[i];
+                    value += values[i];
+                }
+            }
+            assertTrue(spent <= budget);
+            assertEquals(knapsack.getValue(), value);
+            assertEquals(bruteForce(costs, values, budget), value);
+        }
+    }
+
+    @Test
+    void testTimeLimitKeepsGreedyPick() {
+        // Equal value per ban makes the bound useless, so the search cannot finish
+        int items = 300;
+        long[] costs = new long[items];
+        long[] values = new long[items];
+        Random random = new Random(5);
+        for (int i = 0; i < items; i++) {
+            costs[i] = 1_000 + random.nextInt(100_000);
+            values[i] = costs[i];
+        }
+
+        long start = System.nanoTime();
+        BudgetKnapsack knapsack = new BudgetKnapsack(costs, values, 5_000_001, 50_000_000L);
+        boolean[] picked = knapsack.solve();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        long spent = 0;
+        for (int i = 0; i < items; i++) {
+            if (picked[i]) spent += costs[i];
+        }
+        assertTrue(spent <= 5_000_001);
+        assertTrue(knapsack.getValue() > 4_900_000);
+        assertTrue(millis < 1_000, "solve took " + millis + " ms");
+    }
+
+    private static long bruteForce(long[] costs, long[] values, long budget) {
+        long best = 0;
+        for (int mask = 0; mask < 1 << costs.length; mask++) {
+            long spent = 0;
+            long value = 0;
+            for (int i = 0; i < costs.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    spent += costs[i];
+                    value += values[i];
+                }
+            }
+            if (spent <= budget) best = Math.max(best, value);
+        }
+        return best;
+    }
+}
@@ -1,12 +1,13 @@
 package com.pricecomparator.service;
 
-import com.pricecomparator.model.Product;
+import com.pricecomparator.model.Discount;
 import com.pricecomparator.repository.MarketDataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class NewestDiscountsTest {
@@ -21,17 +22,21 @@ class NewestDiscountsTest {
     }
 
     @Test
-    void testShowNewestDiscounts_withProducts() {
-        Product p1 = new Product("P1", "Banana", "Fruits", "BrandA", 2.0, "kg", 10.0, "RON");
-        Map<String, List<Product>> data = Map.of("Kaufland", List.of(p1));
-        when(repo.getProductsForDate(date)).thenReturn(data);
+    void testShowNewestDiscounts_withDiscounts() {
+        Discount d1 = new Discount("P1", "Banana", "BrandA", "1", "kg", "Fruits", date, "2025-05-07", 10, date);
+        Map<String, List<Discount>> data = Map.of("Kaufland", List.of(d1));
+        when(repo.getNewDiscounts(date, date)).thenReturn(data);
         newestDiscounts.showNewestDiscounts("Kaufland", date);
+
+        assertEquals(Map.of("Kaufland", List.of(d1)), newestDiscounts.getNewDiscounts("Kaufland", date, date));
+        assertEquals(data, newestDiscounts.getNewDiscounts(BestDiscounts.ALL_STORES, date, date));
     }
 
     @Test
-    void testShowNewestDiscounts_noProducts() {
-        Map<String, List<Product>> data = Map.of("Kaufland", List.of());
-        when(repo.getProductsForDate(date)).thenReturn(data);
+    void testShowNewestDiscounts_noDiscounts() {
+        when(repo.getNewDiscounts(date, date)).thenReturn(Map.of());
         newestDiscounts.showNewestDiscounts("Kaufland", date);
+
+        assertTrue(newestDiscounts.getNewDiscounts("Kaufland", date, date).isEmpty());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package com.pricecomparator.service;
+
+import com.pricecomparator.loader.MarketDataFile;
+import com.pricecomparator.loader.OpenCsvFeedParser;
+import com.pricecomparator.model.BasketLine;
+import com.pricecomparator.model.BasketSplit;
+import com.pricecomparator.model.Discount;
+import com.pricecomparator.model.Product;
+import com.pricecomparator.repository.DiscountRepository;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.MarketDataRepository;
+import com.pricecomparator.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizedBasketTest {
+    private static final String DATE = "2025-05-01";
+
+    @Test
+    void testEditsMatchFullOptimization() {
+        Random random = new Random(9);
+        Map<String, List<Product>> storeProducts = new LinkedHashMap<>();
+        for (String store : List.of("Lidl", "Kaufland", "Profi")) {
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                if (random.nextInt(3) == 0) continue;
+                products.add(new Product("P" + i, "product " + i, "category", "brand", 1, "buc",
+                        1 + random.nextInt(2_000) / 100.0, "RON", DATE));
+            }
+            storeProducts.put(store, products);
+        }
+        EffectivePriceMatrix prices = EffectivePriceMatrix.build(storeProducts, Collections.emptyMap());
+        OptimizedBasket basket = new OptimizedBasket(prices, DATE);
+
+        for (int edit = 0; edit < 500; edit++) {
+            // A few IDs past the catalog, which no store sells
+            String productId = "P" + random.nextInt(45);
+            switch (random.nextInt(3)) {
+                case 0:
+                    basket.add(productId, 1 + random.nextInt(3));
+                    break;
+                case 1:
+                    basket.remove(productId);
+                    break;
+                default:
+                    basket.setQuantity(productId, random.nextInt(4));
+            }
+
+            BasketSplit expected = BasketOptimizer.optimize(null, basket.getQuantities(), DATE, prices);
+            assertEquals(expected.getOptimizedTotal(), basket.getOptimizedTotal(), 1e-6);
+            assertEquals(expected.getOriginalTotal(), basket.getOriginalTotal(), 1e-6);
+            assertEquals(expected.getMissingProductIds(), basket.getMissingProductIds());
+
+            Map<String, Double> expectedSubtotals = new HashMap<>();
+            for (BasketLine line : expected.getLines()) {
+                expectedSubtotals.merge(line.getStore(), line.getTotal(), Double::sum);
+                assertEquals(line.getStore(), basket.getStoreOf(line.getProductId()));
+            }
+            Map<String, Double> subtotals = basket.getStoreSubtotals();
+            assertEquals(expectedSubtotals.keySet(), subtotals.keySet());
+            expectedSubtotals.forEach((store, total) -> assertEquals(total, subtotals.get(store), 1e-6));
+        }
+    }
+
+    @Test
+    void testEmptiedBasketHasNoTotals() {
+        Product bread = new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 3.3, "RON");
+        OptimizedBasket basket = new OptimizedBasket(
+                EffectivePriceMatrix.build(Map.of("Lidl", List.of(bread)), Map.of()), DATE);
+
+        basket.add("P1", 3);
+        basket.add("P9", 1);
+        assertEquals(List.of("P9"), basket.getMissingProductIds());
+        assertTrue(basket.remove("P1"));
+        assertFalse(basket.remove("P1"));
+
+        assertEquals(0.0, basket.getOptimizedTotal());
+        assertTrue(basket.getStoreSubtotals().isEmpty());
+        assertEquals(Map.of("P9", 1), basket.getQuantities());
+        assertNull(basket.getStoreOf("P1"));
+    }
+
+    @Test
+    void testRepricedAfterIngestion(@TempDir Path dir) throws Exception {
+        Map<String, Map<LocalDate, List<Product>>> productData = new HashMap<>();
+        productData.put("Lidl", Map.of(LocalDate.parse(DATE),
+                List.of(new Product("P1", "Bread", "Bakery", "BrandA", 1.0, "buc", 5.0, "RON"))));
+        MarketDataRepository repo = new MarketDataRepository(new ProductRepository(productData),
+                new DiscountRepository(new HashMap<String, Map<LocalDate, List<Discount>>>()));
+        OptimizedBasket basket = new BasketOptimizer(repo).openBasket(Map.of("P1", 2), DATE);
+        assertEquals(10.0, basket.getOptimizedTotal(), 1e-9);
+        long version = basket.getDataVersion();
+
+        // A new store undercuts Lidl on the basket's date
+        Path csv = dir.resolve("profi_" + DATE + ".csv");
+        Files.write(csv, ("product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n"
+                + "P1;Bread;Bakery;BrandA;1;buc;4.00;RON\n").getBytes(StandardCharsets.UTF_8));
+        repo.ingestFile(MarketDataFile.fromFile(csv.toFile()), new OpenCsvFeedParser());
+
+        assertEquals("Profi", basket.getStoreOf("P1"));
+        assertEquals(8.0, basket.getOptimizedTotal(), 1e-9);
+        assertEquals(Map.of("Profi", 8.0), basket.getStoreSubtotals());
+        assertEquals(version + 1, basket.getDataVersion());
+        basket.add("P1", 1);
+        assertEquals(12.0, basket.toSplit(null).getOptimizedTotal(), 1e-9);
+    }
+}
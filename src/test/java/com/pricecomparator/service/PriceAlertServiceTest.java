@@ -1,13 +1,25 @@
 package com.pricecomparator.service;
 
+import com.pricecomparator.loader.MarketDataFile;
+import com.pricecomparator.loader.OpenCsvFeedParser;
+import com.pricecomparator.model.AlertTrigger;
 import com.pricecomparator.model.PriceAlert;
+import com.pricecomparator.model.PriceChange;
 import com.pricecomparator.model.Product;
 import com.pricecomparator.model.Discount;
 import com.pricecomparator.repository.AlertRepository;
+import com.pricecomparator.repository.EffectivePriceMatrix;
+import com.pricecomparator.repository.DiscountRepository;
 import com.pricecomparator.repository.MarketDataRepository;
+import com.pricecomparator.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,8 +54,8 @@ class PriceAlertServiceTest {
         Product product = new Product("P1", "Banana", "Fruits", "BrandA", 1.0, "kg", 8.0, "RON");
         Map<String, List<Product>> data = Map.of("Kaufland", List.of(product));
         when(alertRepo.getActiveAlerts()).thenReturn(List.of(alert));
-        when(marketRepo.getProductsForDate(date)).thenReturn(data);
-        when(marketRepo.getActiveDiscount(anyString(), anyString(), anyString())).thenReturn(null);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of());
+        when(marketRepo.getEffectivePriceMatrix(date)).thenReturn(matrix);
         List<PriceAlert> triggered = alertService.checkAlerts(date);
         assertEquals(1, triggered.size());
         assertEquals("Banana", triggered.get(0).getProductName());
@@ -55,8 +67,8 @@ class PriceAlertServiceTest {
         Product product = new Product("P1", "Banana", "Fruits", "BrandA", 1.0, "kg", 8.0, "RON");
         Map<String, List<Product>> data = Map.of("Kaufland", List.of(product));
         when(alertRepo.getActiveAlerts()).thenReturn(List.of(alert));
-        when(marketRepo.getProductsForDate(date)).thenReturn(data);
-        when(marketRepo.getActiveDiscount(anyString(), anyString(), anyString())).thenReturn(null);
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, Map.of());
+        when(marketRepo.getEffectivePriceMatrix(date)).thenReturn(matrix);
         List<PriceAlert> triggered = alertService.checkAlerts(date);
         assertTrue(triggered.isEmpty());
     }
@@ -67,4 +79,180 @@ class PriceAlertServiceTest {
         List<PriceAlert> alerts = alertService.getActiveAlerts();
         assertTrue(alerts.isEmpty());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testCheckAlerts_indexMatchesScanWithDiscounts() {
+        Random random = new Random(21);
+        Map<String, List<Product>> data = new LinkedHashMap<>();
+        Map<String, List<Discount>> discounts = new HashMap<>();
+        for (String store : List.of("Lidl", "Kaufland")) {
+            List<Product> products = new ArrayList<>();
+            List<Discount> storeDiscounts = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                products.add(new Product("P" + i, "product " + i, "c", "b", 1.0, "buc", 1 + random.nextInt(20), "RON"));
+                if (random.nextBoolean()) {
+                    storeDiscounts.add(new Discount("P" + i, "product " + i, "b", "1", "buc", "c",
+                            date, date, 5 + random.nextInt(40), date));
+                }
+            }
+            data.put(store, products);
+            discounts.put(store, storeDiscounts);
+        }
+        EffectivePriceMatrix matrix = EffectivePriceMatrix.build(data, discounts);
+        when(marketRepo.getEffectivePriceMatrix(date)).thenReturn(matrix);
+
+        List<PriceAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            alerts.add(new PriceAlert("P" + random.nextInt(60), "product", random.nextInt(25), "user" + i));
+        }
+        when(alertRepo.getActiveAlerts()).thenReturn(alerts);
+
+        Set<PriceAlert> expected = new HashSet<>();
+        for (PriceAlert alert : alerts) {
+            double best = Double.MAX_VALUE;
+            for (String store : data.keySet()) {
+                for (Product product : data.get(store)) {
+                    if (!product.getId().equals(alert.getProductId())) continue;
+                    int percent = discounts.get(store).stream().filter(d -> d.getProductId().equals(product.getId()))
+                            .mapToInt(Discount::getDiscountPercent).findFirst().orElse(0);
+                    best = Math.min(best, product.getPrice() * (1 - percent / 100.0));
+                }
+            }
+            if (best <= alert.getTargetPrice()) expected.add(alert);
+        }
+
+        List<PriceAlert> triggered = alertService.findTriggeredAlerts(date);
+        assertEquals(expected.size(), triggered.size());
+        assertEquals(expected, new HashSet<>(triggered));
+
+        // The index is kept until alerts change
+        alerts.clear();
+        assertEquals(expected.size(), alertService.findTriggeredAlerts(date).size());
+        alertService.alertsChanged();
+        assertTrue(alertService.findTriggeredAlerts(date).isEmpty());
+    }
+
+    @Test
+    void testWatchPriceChanges_publishesAlertsCrossedByIngestedFiles(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = milkAndBreadRepository();
+        repo.setToday(LocalDate.parse("2025-05-15"));
+        PriceAlert reachedBefore = new PriceAlert("P1", "lapte", 11.0, "user1");
+        PriceAlert cheaper = new PriceAlert("P1", "lapte", 9.0, "user2");
+        PriceAlert cheapest = new PriceAlert("P1", "lapte", 5.0, "user3");
+        when(alertRepo.getActiveAlerts()).thenReturn(List.of(reachedBefore, cheaper, cheapest));
+        alertService = new PriceAlertService(alertRepo, repo);
+
+        List<PriceChange> changes = new ArrayList<>();
+        repo.addPriceChangeListener(changes::addAll);
+        List<AlertTrigger> triggers = new ArrayList<>();
+        alertService.watchPriceChanges(triggers::add);
+
+        // Lidl drops milk below Kaufland's price and stops selling bread
+        ingest(repo, dir, "lidl_2025-05-15.csv", PRODUCT_HEADER + "P1;lapte;lactate;Zuzu;1;l;8.50;RON\n");
+
+        assertEquals(2, changes.size());
+        assertEquals("P1", changes.get(0).getProductId());
+        assertEquals(12.0, changes.get(0).getOldPrice());
+        assertEquals(8.5, changes.get(0).getNewPrice());
+        assertEquals("P2", changes.get(1).getProductId());
+        assertTrue(Double.isNaN(changes.get(1).getNewPrice()));
+        assertEquals(1, triggers.size());
+        assertSame(cheaper, triggers.get(0).getAlert());
+        assertEquals("Lidl", triggers.get(0).getStore());
+        assertEquals(8.5, triggers.get(0).getPrice());
+
+        // A discount on the same day halves the price again
+        changes.clear();
+        triggers.clear();
+        ingest(repo, dir, "lidl_discounts_2025-05-15.csv", DISCOUNT_HEADER + "P1;lapte;Zuzu;1;l;lactate;2025-05-15;2025-05-20;50\n");
+
+        assertEquals(1, changes.size());
+        assertEquals(4.25, changes.get(0).getNewPrice());
+        assertEquals(1, triggers.size());
+        assertSame(cheapest, triggers.get(0).getAlert());
+    }
+
+    @Test
+    void testWatchPriceChanges_ignoresBackfilledAndFutureFiles(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = milkAndBreadRepository();
+        repo.setToday(LocalDate.parse("2025-05-15"));
+        PriceAlert alert = new PriceAlert("P1", "lapte", 9.0, "user1");
+        when(alertRepo.getActiveAlerts()).thenReturn(List.of(alert));
+        alertService = new PriceAlertService(alertRepo, repo);
+        List<PriceChange> changes = new ArrayList<>();
+        repo.addPriceChangeListener(changes::addAll);
+        List<AlertTrigger> triggers = new ArrayList<>();
+        alertService.watchPriceChanges(triggers::add);
+
+        ingest(repo, dir, "lidl_2025-05-10.csv", PRODUCT_HEADER + "P1;lapte;lactate;Zuzu;1;l;11.00;RON\n");
+        changes.clear();
+        // Backfilled: Lidl already uses its 2025-05-10 file today, so older prices change nothing
+        ingest(repo, dir, "lidl_2025-05-05.csv", PRODUCT_HEADER + "P1;lapte;lactate;Zuzu;1;l;7.00;RON\n");
+        // Not yet valid: it only counts once today reaches it
+        ingest(repo, dir, "lidl_2025-05-20.csv", PRODUCT_HEADER + "P1;lapte;lactate;Zuzu;1;l;8.00;RON\n");
+        assertTrue(changes.isEmpty());
+        assertTrue(triggers.isEmpty());
+
+        repo.setToday(LocalDate.parse("2025-05-20"));
+        assertEquals(1, triggers.size());
+        assertEquals(8.0, triggers.get(0).getPrice());
+        assertEquals("2025-05-20", triggers.get(0).getDate());
+    }
+
+    @Test
+    void testWatchPriceChanges_publishesFutureDiscountsWhenTheyStart(@TempDir Path dir) throws Exception {
+        MarketDataRepository repo = milkAndBreadRepository();
+        repo.setToday(LocalDate.parse("2025-05-15"));
+        PriceAlert alert = new PriceAlert("P1", "lapte", 6.0, "user1");
+        when(alertRepo.getActiveAlerts()).thenReturn(List.of(alert));
+        alertService = new PriceAlertService(alertRepo, repo);
+        List<PriceChange> changes = new ArrayList<>();
+        repo.addPriceChangeListener(changes::addAll);
+        List<AlertTrigger> triggers = new ArrayList<>();
+        alertService.watchPriceChanges(triggers::add);
+
+        // Posted today, but Kaufland's discount only starts in three days
+        ingest(repo, dir, "kaufland_discounts_2025-05-15.csv", DISCOUNT_HEADER + "P1;lapte;Zuzu;1;l;lactate;2025-05-18;2025-05-20;50\n");
+        assertTrue(changes.isEmpty());
+
+        repo.setToday(LocalDate.parse("2025-05-17"));
+        assertTrue(triggers.isEmpty());
+        repo.setToday(LocalDate.parse("2025-05-18"));
+        assertEquals(1, triggers.size());
+        assertSame(alert, triggers.get(0).getAlert());
+        assertEquals("Kaufland", triggers.get(0).getStore());
+        assertEquals(5.0, triggers.get(0).getPrice());
+
+        // Once it ends the price goes back up, which is a change but no trigger
+        changes.clear();
+        repo.setToday(LocalDate.parse("2025-05-21"));
+        assertEquals(1, changes.size());
+        assertEquals(10.0, changes.get(0).getNewPrice());
+        assertEquals(1, triggers.size());
+    }
+
+    private static final String PRODUCT_HEADER =
+            "product_id;product_name;product_category;brand;package_quantity;package_unit;price;currency\n";
+    private static final String DISCOUNT_HEADER =
+            "product_id;product_name;brand;package_quantity;package_unit;product_category;from_date;to_date;percentage_of_discount\n";
+
+    /**
+     * Kaufland sells milk at 10.00 and Lidl milk at 12.00 and bread, from 2025-05-01
+     */
+    private static MarketDataRepository milkAndBreadRepository() {
+        Map<String, Map<LocalDate, List<Product>>> productData = new HashMap<>();
+        productData.put("Kaufland", Map.of(LocalDate.parse("2025-05-01"),
+                List.of(new Product("P1", "lapte", "lactate", "Zuzu", 1, "l", 10.0, "RON"))));
+        productData.put("Lidl", Map.of(LocalDate.parse("2025-05-01"),
+                List.of(new Product("P1", "lapte", "lactate", "Zuzu", 1, "l", 12.0, "RON"),
+                        new Product("P2", "pâine", "panificație", "Vel Pitar", 0.5, "kg", 5.0, "RON"))));
+        return new MarketDataRepository(new ProductRepository(productData),
+                new DiscountRepository(new HashMap<String, Map<LocalDate, List<Discount>>>()));
+    }
+
+    private static void ingest(MarketDataRepository repo, Path dir, String fileName, String content) throws Exception {
+        Path file = dir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        repo.ingestFile(MarketDataFile.fromFile(file.toFile()), new OpenCsvFeedParser());
+    }
+}
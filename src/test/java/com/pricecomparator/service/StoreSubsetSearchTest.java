@@ -0,0 +1,90 @@
+package com.pricecomparator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreSubsetSearchTest {
+
+    @Test
+    void testExactSearchMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            double[][] costs = randomCosts(random, 30, 10);
+            StoreSubsetSearch search = new StoreSubsetSearch(costs, 10, 4);
+            int[][] subsets = search.run();
+            assertTrue(search.isExact());
+
+            for (int size = 1; size <= 4; size++) {
+                double expected = bruteForce(costs, 10, size);
+                if (expected == Double.POSITIVE_INFINITY) {
+                    assertNull(subsets[size]);
+                } else {
+                    assertEquals(expected, search.getCost(size), 1e-9);
+                    assertEquals(expected, costOf(costs, subsets[size]), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testHeuristicCoversManyStoresAndItems() {
+        int stores = 40;
+        double[][] costs = randomCosts(new Random(11), 150, stores);
+        StoreSubsetSearch search = new StoreSubsetSearch(costs, stores, 5);
+
+        long start = System.nanoTime();
+        int[][] subsets = search.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(search.isExact());
+        for (int size = 1; size <= 5; size++) {
+            if (subsets[size] == null) continue;
+            assertEquals(size, subsets[size].length);
+            assertEquals(search.getCost(size), costOf(costs, subsets[size]), 1e-9);
+        }
+        assertNotNull(subsets[5]);
+        assertTrue(search.getCost(5) <= search.getCost(4) || subsets[4] == null);
+        assertTrue(millis < 2_000, "heuristic took " + millis + " ms");
+    }
+
+    private static double[][] randomCosts(Random random, int items, int stores) {
+        double[][] costs = new double[items][stores];
+        for (int i = 0; i < items; i++) {
+            for (int s = 0; s < stores; s++) {
+                costs[i][s] = random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY : 1 + random.nextInt(50);
+            }
+            costs[i][random.nextInt(stores)] = 1 + random.nextInt(50);
+        }
+        return costs;
+    }
+
+    private static double bruteForce(double[][] costs, int stores, int size) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int mask = 1; mask < 1 << stores; mask++) {
+            if (Integer.bitCount(mask) != size) continue;
+            double total = 0;
+            for (double[] item : costs) {
+                double cheapest = Double.POSITIVE_INFINITY;
+                for (int s = 0; s < stores; s++) {
+                    if ((mask & 1 << s) != 0) cheapest = Math.min(cheapest, item[s]);
+                }
+                total += cheapest;
+            }
+            best = Math.min(best, total);
+        }
+        return best;
+    }
+
+    private static double costOf(double[][] costs, int[] subset) {
+        double total = 0;
+        for (double[] item : costs) {
+            double cheapest = Double.POSITIVE_INFINITY;
+            for (int s : subset) cheapest = Math.min(cheapest, item[s]);
+            total += cheapest;
+        }
+        return total;
+    }
+}